@@ -0,0 +1,102 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark: default build vs the fast-startup build profile (Spring AOT + CDS, no JPA bootstrap)
+#
+# For each variant the application is started RUNS times. Each run records the time from launching the JVM
+# to the first successful response from PROBE_PATH, and the resident set size (RSS) of the JVM at that moment.
+# Every run is appended to RESULTS as CSV so numbers can be compared across commits; a median summary is
+# printed at the end.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#   RUNS        runs per variant (default 5, or the first argument)
+#   PORT        HTTP port the application is started on (default 18080)
+#   PROBE_PATH  request that must succeed (default /actuator/health, which also checks the database)
+#   JAVA_OPTS   extra JVM options for both variants, e.g. "-Xmx512m"
+#   SKIP_BUILD  set to 1 to reuse the jars from the previous invocation
+#   RESULTS     CSV file to append to (default target/startup-benchmark/results.csv)
+#
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+RUNS=${1:-${RUNS:-5}}
+PORT=${PORT:-18080}
+PROBE_PATH=${PROBE_PATH:-/actuator/health}
+JAVA_OPTS=${JAVA_OPTS:-}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+OUT=$ROOT/target/startup-benchmark
+RESULTS=${RESULTS:-$OUT/results.csv}
+FAST_DIR=$ROOT/target/fast-startup
+FAST_PROFILES=dev,fast-startup
+
+cd "$ROOT"
+
+if [[ "${SKIP_BUILD:-0}" != 1 ]]; then
+    echo "Building default jar"
+    ./mvnw -B -q -DskipTests package
+    mkdir -p "$OUT/default"
+    cp "$(ls target/*.jar | head -n 1)" "$OUT/default/app.jar"
+
+    echo "Building fast-startup jar (AOT processing and CDS training run)"
+    ./mvnw -B -q -DskipTests -Pfast-startup package
+fi
+
+FAST_JAR=$(basename "$(ls "$FAST_DIR"/*.jar | head -n 1)")
+REVISION=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+mkdir -p "$(dirname "$RESULTS")"
+[[ -f "$RESULTS" ]] || echo "timestamp,revision,variant,run,time_to_first_request_ms,rss_mb" > "$RESULTS"
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ value[NR] = $1 } END { print value[int((NR + 1) / 2)] }'
+}
+
+# measure <variant> <working directory> <jar> [jvm options...]
+measure() {
+    local variant=$1 dir=$2 jar=$3
+    shift 3
+    for run in $(seq 1 "$RUNS"); do
+        local log=$OUT/$variant-$run.log
+        local started
+        started=$(now_ms)
+        # shellcheck disable=SC2086
+        (cd "$dir" && exec java $JAVA_OPTS "$@" -Dserver.port="$PORT" -jar "$jar") > "$log" 2>&1 &
+        local pid=$!
+
+        until curl -sf -o /dev/null "http://localhost:$PORT$PROBE_PATH"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$variant run $run: application exited before answering, see $log" >&2
+                exit 1
+            fi
+            if (( $(now_ms) - started > TIMEOUT_SECONDS * 1000 )); then
+                kill "$pid"
+                echo "$variant run $run: no successful request within ${TIMEOUT_SECONDS}s, see $log" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        local elapsed=$(( $(now_ms) - started ))
+        local rss_kb
+        rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+
+        echo "$(date -u +%Y-%m-%dT%H:%M:%SZ),$REVISION,$variant,$run,$elapsed,$(( rss_kb / 1024 ))" >> "$RESULTS"
+        printf '%-14s run %d: %6d ms  %5d MB\n' "$variant" "$run" "$elapsed" $(( rss_kb / 1024 ))
+    done
+}
+
+measure default "$OUT/default" app.jar
+measure fast-startup "$FAST_DIR" "$FAST_JAR" \
+    -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active="$FAST_PROFILES"
+
+echo
+echo "Median of the last $RUNS runs per variant ($RESULTS):"
+for variant in default fast-startup; do
+    runs=$(grep ",$variant," "$RESULTS" | tail -n "$RUNS")
+    printf '  %-14s %6d ms  %5d MB\n' "$variant" \
+        "$(cut -d, -f5 <<< "$runs" | median)" "$(cut -d, -f6 <<< "$runs" | median)"
+done
@@ -0,0 +1,47 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Archival of completed tasks into compressed files
+ * Bound from the app.archive.* properties in application.yml
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.archive")
+public class ArchiveProperties {
+
+    /**
+     * Move rows of old completed tasks to archive files on this node
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long after completion a task's rows stay in the database
+     */
+    private Duration retention = Duration.ofDays(30);
+
+    /**
+     * Directory of the archive files, must be readable by every node that serves the API
+     */
+    @NotNull
+    private Path directory = Path.of("data", "task-archive");
+
+    /**
+     * How often completed tasks are checked for archival
+     */
+    private Duration pollInterval = Duration.ofHours(1);
+
+    /**
+     * Rows read from the database per statement while a task is archived or its results are read
+     */
+    @Min(1)
+    private int pageSize = 500;
+}
@@ -0,0 +1,48 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Chat and similarity services called while evaluating rows
+ * Bound from the app.chat.* properties in application.yml
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.chat")
+public class ChatApiProperties {
+
+    /**
+     * Base URL of the chat platform
+     */
+    private String baseUrl = "http://localhost:8081";
+
+    /**
+     * Service-level API token sent as a bearer token, if any
+     */
+    private String apiToken;
+
+    private String chatPath = "/chat";
+
+    private String similarityPath = "/similarity";
+
+    /**
+     * Timeout of a single call
+     */
+    private Duration timeout = Duration.ofSeconds(60);
+
+    /**
+     * Retries of a failed call before the row, and with it the task, fails
+     */
+    @Min(0)
+    private int maxRetries = 3;
+
+    /**
+     * First retry delay, doubled on every further attempt
+     */
+    private Duration retryBackoff = Duration.ofSeconds(30);
+}
@@ -0,0 +1,39 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Background reclamation of deleted tasks
+ * Bound from the app.deletion.* properties in application.yml
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.deletion")
+public class DeletionProperties {
+
+    /**
+     * Reclaim rows of deleted tasks on this node
+     */
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on rows removed per statement, each chunk runs in its own short transaction
+     */
+    @Min(1)
+    private int chunkSize = 500;
+
+    /**
+     * Pause between two chunks, caps the delete rate at chunk-size rows per interval
+     */
+    private Duration chunkInterval = Duration.ofMillis(100);
+
+    /**
+     * Safety-net scan for deleted tasks whose reclamation was interrupted (e.g. by a restart)
+     */
+    private Duration pollInterval = Duration.ofMinutes(5);
+}
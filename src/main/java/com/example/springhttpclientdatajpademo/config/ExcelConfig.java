@@ -0,0 +1,9 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ExcelProperties.class, FileProperties.class})
+public class ExcelConfig {
+}
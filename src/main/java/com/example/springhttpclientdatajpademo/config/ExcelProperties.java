@@ -0,0 +1,66 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import com.example.springhttpclientdatajpademo.enums.RowValidationMode;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Excel upload limits and parsing options
+ * Bound from the app.excel.* properties in application.yml
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.excel")
+public class ExcelProperties {
+
+    /**
+     * Maximum number of sheets accepted per workbook
+     */
+    @Min(1)
+    private int maxSheets = 10;
+
+    /**
+     * Maximum number of data rows accepted per sheet
+     */
+    @Min(1)
+    private int maxRowsPerSheet = 10000;
+
+    /**
+     * Parse and persist sheets concurrently instead of one after another
+     */
+    private boolean parallelSheets = true;
+
+    /**
+     * Upper bound on sheets parsed and persisted at the same time when parallel-sheets is on
+     */
+    @Min(1)
+    private int sheetParallelism = 4;
+
+    /**
+     * Upper bound on files parsed and persisted at the same time in a multi-file upload,
+     * each of them with up to sheet-parallelism sheets in flight
+     */
+    @Min(1)
+    private int fileParallelism = 4;
+
+    /**
+     * What to do with an upload when some of its rows fail validation
+     * Only skip-invalid-rows persists sheets concurrently, reject-file saves them one at a time.
+     */
+    private RowValidationMode rowValidationMode = RowValidationMode.SKIP_INVALID_ROWS;
+
+    /**
+     * Upper bound on rejected rows listed in the error report, further rejects are only counted
+     */
+    @Min(1)
+    private int maxReportedRowErrors = 100;
+
+    /**
+     * Number of sheets that may be in flight at once for the configured mode
+     */
+    public int effectiveSheetParallelism() {
+        return parallelSheets ? sheetParallelism : 1;
+    }
+}
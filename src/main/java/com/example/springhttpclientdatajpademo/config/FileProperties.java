@@ -0,0 +1,37 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Upload file limits and spooling options
+ * Bound from the app.file.* properties in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "app.file")
+public class FileProperties {
+
+    /**
+     * Maximum accepted upload size
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(100);
+
+    /**
+     * Accepted file extensions
+     */
+    private List<String> allowedTypes = List.of(".xlsx", ".xls");
+
+    /**
+     * Spool uploads to a temp file and parse them from disk instead of buffering them on the heap
+     */
+    private boolean spoolToDisk = true;
+
+    /**
+     * Directory for spooled uploads, defaults to java.io.tmpdir
+     */
+    private Path spoolDirectory;
+}
@@ -1,10 +1,12 @@
 package com.example.springhttpclientdatajpademo.config;
 
+import com.example.springhttpclientdatajpademo.entity.PackedStrings;
 import com.example.springhttpclientdatajpademo.enums.TaskStatus;
 import com.example.springhttpclientdatajpademo.enums.TaskType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -14,10 +16,12 @@ import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties(StorageProperties.class)
 @EnableR2dbcRepositories(basePackages = "com.example.springhttpclientdatajpademo.repository")
 public class R2dbcConfig extends AbstractR2dbcConfiguration {
 
@@ -42,7 +46,10 @@ public class R2dbcConfig extends AbstractR2dbcConfiguration {
             new TaskTypeReadingConverter(),
             new TaskTypeWritingConverter(),
             new JsonNodeReadingConverter(),
-            new JsonNodeWritingConverter()
+            new JsonNodeWritingConverter(),
+            new PackedStringsReadingConverter(),
+            new PackedStringsByteBufferReadingConverter(),
+            new PackedStringsWritingConverter()
         );
         return new R2dbcCustomConversions(getStoreConversions(), converters);
     }
@@ -102,4 +109,30 @@ public class R2dbcConfig extends AbstractR2dbcConfiguration {
             }
         }
     }
-} 
\ No newline at end of file
+
+    @ReadingConverter
+    public static class PackedStringsReadingConverter implements Converter<byte[], PackedStrings> {
+        @Override
+        public PackedStrings convert(byte[] source) {
+            return PackedStrings.wrap(source);
+        }
+    }
+
+    @ReadingConverter
+    public static class PackedStringsByteBufferReadingConverter implements Converter<ByteBuffer, PackedStrings> {
+        @Override
+        public PackedStrings convert(ByteBuffer source) {
+            byte[] bytes = new byte[source.remaining()];
+            source.get(bytes);
+            return PackedStrings.wrap(bytes);
+        }
+    }
+
+    @WritingConverter
+    public static class PackedStringsWritingConverter implements Converter<PackedStrings, byte[]> {
+        @Override
+        public byte[] convert(PackedStrings source) {
+            return source.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import com.example.springhttpclientdatajpademo.enums.InputStorageFormat;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Row storage options
+ * Bound from the app.storage.* properties in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "app.storage")
+public class StorageProperties {
+
+    /**
+     * Format used when writing citations and metadata of new input rows
+     * Rows in either format are always readable
+     */
+    private InputStorageFormat inputFormat = InputStorageFormat.JSON;
+}
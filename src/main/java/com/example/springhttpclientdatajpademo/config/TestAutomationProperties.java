@@ -0,0 +1,52 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test runs that ask the chat platform predefined questions as a set of test users
+ * A test run is a task of type test-automation processed by the worker. Bound from the app.test-automation.* properties in application.yml. The chat platform itself is
+ * configured under app.chat, whose api-token is the service-level token used to act as test users.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.test-automation")
+public class TestAutomationProperties {
+
+    /**
+     * Users allowed to start test runs, empty allows every authenticated user
+     */
+    private List<String> requestUsers = new ArrayList<>();
+
+    /**
+     * Test users the chat platform is called as
+     */
+    private List<String> testUsers = new ArrayList<>();
+
+    /**
+     * Approved questions
+     */
+    private List<String> questions = new ArrayList<>();
+
+    /**
+     * Chat calls in flight per test user, also the size of the user's own connection pool
+     * Calls across all test users are bounded by app.worker.concurrency like any other task's rows.
+     */
+    @Min(1)
+    private int perUserConcurrency = 2;
+
+    /**
+     * Creates an auth token for a test user, called with the service-level token
+     */
+    private String authTokenPath = "/rest/api/v1/createauthtoken";
+
+    /**
+     * Header naming the test user the service-level token acts as
+     */
+    private String actAsHeader = "X-Scio-ActAs";
+}
@@ -0,0 +1,10 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({WorkerProperties.class, ChatApiProperties.class, DeletionProperties.class,
+    ArchiveProperties.class, TestAutomationProperties.class})
+public class WorkerConfig {
+}
@@ -0,0 +1,112 @@
+package com.example.springhttpclientdatajpademo.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Background task processing options
+ * Bound from the app.worker.* properties in application.yml
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app.worker")
+public class WorkerProperties {
+
+    /**
+     * Run the background processor on this node
+     */
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on rows evaluated at the same time on this node, across all tasks
+     */
+    @Min(1)
+    private int concurrency = 4;
+
+    /**
+     * Upper bound on tasks claimed by this node at the same time; their rows are interleaved fairly
+     */
+    @Min(1)
+    private int maxActiveTasks = 8;
+
+    /**
+     * Upper bound on claimed tasks per user, so one large upload cannot take every active slot
+     */
+    @Min(1)
+    private int maxActiveTasksPerUser = 2;
+
+    /**
+     * Rows read from the database per claimed task at a time
+     */
+    @Min(1)
+    private int rowBatchSize = 50;
+
+    /**
+     * Relative share of evaluation throughput per user id, users not listed get 1
+     */
+    private Map<String, Integer> userWeights = new HashMap<>();
+
+    /**
+     * Safety-net scan of the tasks table for queued work whose wake-up was missed
+     */
+    private Duration fallbackPollInterval = Duration.ofMinutes(5);
+
+    /**
+     * How often the outbox is checked for tasks queued on other nodes, zero (the default) disables it;
+     * only needed when several nodes share the database
+     */
+    private Duration outboxPollInterval = Duration.ZERO;
+
+    /**
+     * How long an outbox id skipped over by a read is looked for again before it is left to the fallback poll,
+     * covers transactions that commit after rows with higher ids
+     */
+    private Duration outboxGapTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Upper bound on outbox rows read per check
+     */
+    @Min(1)
+    private int outboxBatchSize = 100;
+
+    /**
+     * How often the tasks processed on this node are checked for cancellations made on other nodes,
+     * zero disables it (single node, cancellations made here are signalled directly)
+     */
+    private Duration cancellationPollInterval = Duration.ofMillis(500);
+
+    /**
+     * How often the tasks watched by progress streams on this node are read from the database, all in one query,
+     * to pick up changes made on other nodes; zero (the default) disables it, only needed when several nodes
+     * share the database
+     */
+    private Duration progressRefreshInterval = Duration.ZERO;
+
+    /**
+     * Minimum time between reads of the queued rows per user behind evaluation.queue.depth, about the
+     * metrics scrape interval; changes in between are picked up by the next read
+     */
+    private Duration queueMetricsInterval = Duration.ofSeconds(15);
+
+    /**
+     * Evaluation statistics of a task are written to the database after this many new results
+     */
+    @Min(1)
+    private int statsFlushRows = 50;
+
+    /**
+     * Evaluation statistics with fewer new results are written at least this often
+     */
+    private Duration statsFlushInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long outbox rows are kept before the fallback poll removes them
+     */
+    private Duration outboxRetention = Duration.ofHours(1);
+}
@@ -1,15 +1,26 @@
 package com.example.springhttpclientdatajpademo.controller;
 
+import com.example.springhttpclientdatajpademo.dto.CreateTaskBatchResponse;
 import com.example.springhttpclientdatajpademo.dto.CreateTaskResponse;
+import com.example.springhttpclientdatajpademo.dto.EvaluationStats;
+import com.example.springhttpclientdatajpademo.dto.TaskProgressEvent;
+import com.example.springhttpclientdatajpademo.dto.TaskResultRow;
+import com.example.springhttpclientdatajpademo.dto.UpdateTaskRequest;
+import com.example.springhttpclientdatajpademo.entity.Task;
 import com.example.springhttpclientdatajpademo.service.TaskRequestService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.UUID;
+
 @Slf4j
 @RestController
 @RequestMapping("/rest/v1/tasks")
@@ -26,10 +37,139 @@ public class TaskController {
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<CreateTaskResponse> createTasks(
             @RequestPart("file") Mono<FilePart> filePartMono,
+            @RequestParam(value = "priority", required = false) Integer priority,
             @RequestHeader("Authorization") String authHeader) {
         
         log.info("Received task creation request");
         
-        return taskRequestService.handleTaskCreationRequest(filePartMono, authHeader);
+        return taskRequestService.handleTaskCreationRequest(filePartMono, priority, authHeader);
+    }
+
+    /**
+     * Upload several Excel files and create their tasks under one upload batch
+     * POST /rest/v1/tasks/batches
+     * 201 when tasks were created from at least one file, 400 when every file failed
+     */
+    @PostMapping(value = "/batches", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<CreateTaskBatchResponse>> createTaskBatch(
+            @RequestPart("files") Flux<FilePart> fileParts,
+            @RequestParam(value = "priority", required = false) Integer priority,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received multi-file task creation request");
+        
+        return taskRequestService.handleTaskBatchCreationRequest(fileParts, priority, authHeader)
+            .map(response -> ResponseEntity
+                .status(response.getFailedFiles() < response.getTotalFiles() ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST)
+                .body(response));
+    }
+
+    /**
+     * Update a task, currently only cancelling it
+     * PUT /rest/v1/tasks/{id} (PATCH accepted as well)
+     */
+    @RequestMapping(value = "/{id}", method = {RequestMethod.PUT, RequestMethod.PATCH},
+        consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Task> updateTask(
+            @PathVariable("id") UUID taskId,
+            @RequestBody UpdateTaskRequest request,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received update request for task: {}", taskId);
+        
+        return taskRequestService.handleTaskUpdateRequest(taskId, request, authHeader);
+    }
+
+    /**
+     * Delete a task, its data is removed in the background
+     * DELETE /rest/v1/tasks/{id}
+     */
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteTask(
+            @PathVariable("id") UUID taskId,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received delete request for task: {}", taskId);
+        
+        return taskRequestService.handleTaskDeletionRequest(taskId, authHeader);
+    }
+
+    /**
+     * Stream status and progress of a task as Server-Sent Events
+     * GET /rest/v1/tasks/{id}/events
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TaskProgressEvent>> streamTaskEvents(
+            @PathVariable("id") UUID taskId,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received progress stream request for task: {}", taskId);
+        
+        return taskRequestService.handleTaskEventsRequest(taskId, authHeader)
+            .map(this::toServerSentEvent);
+    }
+
+    /**
+     * Stream status and progress of every task in an upload batch as Server-Sent Events
+     * GET /rest/v1/tasks/batches/{uploadBatchId}/events
+     */
+    @GetMapping(value = "/batches/{uploadBatchId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TaskProgressEvent>> streamBatchEvents(
+            @PathVariable("uploadBatchId") UUID uploadBatchId,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received progress stream request for upload batch: {}", uploadBatchId);
+        
+        return taskRequestService.handleBatchEventsRequest(uploadBatchId, authHeader)
+            .map(this::toServerSentEvent);
+    }
+
+    /**
+     * Export the rows of a task with their results as newline-delimited JSON
+     * GET /rest/v1/tasks/{id}/results
+     */
+    @GetMapping(value = "/{id}/results", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TaskResultRow> getTaskResults(
+            @PathVariable("id") UUID taskId,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received results request for task: {}", taskId);
+        
+        return taskRequestService.handleTaskResultsRequest(taskId, authHeader);
+    }
+
+    /**
+     * Get similarity statistics of a task's results
+     * GET /rest/v1/tasks/{id}/stats
+     */
+    @GetMapping("/{id}/stats")
+    public Mono<EvaluationStats> getTaskStats(
+            @PathVariable("id") UUID taskId,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received statistics request for task: {}", taskId);
+        
+        return taskRequestService.handleTaskStatsRequest(taskId, authHeader);
+    }
+
+    /**
+     * Get similarity statistics of the results of every task in an upload batch
+     * GET /rest/v1/tasks/batches/{uploadBatchId}/stats
+     */
+    @GetMapping("/batches/{uploadBatchId}/stats")
+    public Mono<EvaluationStats> getBatchStats(
+            @PathVariable("uploadBatchId") UUID uploadBatchId,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received statistics request for upload batch: {}", uploadBatchId);
+        
+        return taskRequestService.handleBatchStatsRequest(uploadBatchId, authHeader);
+    }
+
+    private ServerSentEvent<TaskProgressEvent> toServerSentEvent(TaskProgressEvent event) {
+        return ServerSentEvent.builder(event)
+            .event("progress")
+            .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package com.example.springhttpclientdatajpademo.controller;
+
+import com.example.springhttpclientdatajpademo.dto.CreateTaskResponse;
+import com.example.springhttpclientdatajpademo.dto.TestRunRequest;
+import com.example.springhttpclientdatajpademo.service.JwtService;
+import com.example.springhttpclientdatajpademo.service.TestAutomationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RestController
+@RequestMapping("/rest/v1/test-runs")
+@RequiredArgsConstructor
+public class TestRunController {
+
+    private final TestAutomationService testAutomationService;
+    private final JwtService jwtService;
+
+    /**
+     * Queue a test run asking approved questions as test users
+     * POST /rest/v1/test-runs
+     * The run is a task: its progress, cancellation, results and statistics are served under /rest/v1/tasks.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<CreateTaskResponse> createTestRun(
+            @RequestBody TestRunRequest request,
+            @RequestHeader("Authorization") String authHeader) {
+        
+        log.info("Received test run request");
+        
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMap(userId -> testAutomationService.createTestRun(userId, request));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a multi-file upload, one entry per file in upload order
+ * Tasks of every file that succeeded share the upload batch id, a failed file creates no tasks.
+ */
+@Data
+@Builder
+public class CreateTaskBatchResponse {
+    private UUID uploadBatchId;
+    private List<FileResult> files;
+    private Integer totalFiles;
+    private Integer failedFiles;
+    private Integer totalTasks;
+
+    @Data
+    @Builder
+    public static class FileResult {
+        private String filename;
+        private List<CreateTaskResponse.TaskSummary> tasks;
+        private Integer totalTasks;
+        private Integer rejectedRowCount;
+        private List<RowValidationError> rejectedRows;
+
+        /**
+         * Error code and message as the single-file upload would have returned them, null on success
+         */
+        private String errorCode;
+        private String errorMessage;
+
+        @JsonIgnore
+        public boolean isFailed() {
+            return errorCode != null;
+        }
+    }
+}
@@ -14,6 +14,8 @@ public class CreateTaskResponse {
     private UUID uploadBatchId;
     private List<TaskSummary> tasks;
     private Integer totalTasks;
+    private Integer rejectedRowCount;
+    private List<RowValidationError> rejectedRows;
     
     @Data
     @Builder
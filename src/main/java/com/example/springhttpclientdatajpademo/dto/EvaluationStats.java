@@ -0,0 +1,77 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import com.example.springhttpclientdatajpademo.entity.ScoreHistogram;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Similarity score, failure and processing time statistics of a task or of a whole upload batch
+ */
+@Data
+@Builder
+public class EvaluationStats {
+
+    /**
+     * Number of bins of {@link ScoreSummary#getHistogram()}
+     */
+    public static final int HISTOGRAM_BINS = 10;
+
+    /**
+     * Null for upload batch statistics
+     */
+    private UUID taskId;
+    private UUID uploadBatchId;
+    private Long resultCount;
+
+    /**
+     * Results without an answer, only test run calls fail without failing their task
+     */
+    private Long failedCount;
+
+    /**
+     * Mean over the results without an error, null while there are none
+     */
+    private Double meanProcessingTimeMs;
+
+    /**
+     * Empty for test runs, which have no golden answer to compare with
+     */
+    private ScoreSummary answerSimilarity;
+    private ScoreSummary citationSimilarity;
+
+    /**
+     * Mean, percentiles and histogram of one score, the statistics are null while there are no results
+     */
+    @Data
+    @Builder
+    public static class ScoreSummary {
+        private Double mean;
+        private Double p50;
+        private Double p90;
+        private Double p95;
+        private Double p99;
+
+        /**
+         * Result counts in bins of width 0.1 from 0.0 to 1.0
+         */
+        private List<Long> histogram;
+
+        public static ScoreSummary of(ScoreHistogram scores) {
+            return ScoreSummary.builder()
+                .mean(round(scores.mean()))
+                .p50(round(scores.percentile(0.50)))
+                .p90(round(scores.percentile(0.90)))
+                .p95(round(scores.percentile(0.95)))
+                .p99(round(scores.percentile(0.99)))
+                .histogram(scores.histogram(HISTOGRAM_BINS))
+                .build();
+        }
+
+        private static Double round(Double value) {
+            return value != null ? Math.round(value * 10_000) / 10_000.0 : null;
+        }
+    }
+}
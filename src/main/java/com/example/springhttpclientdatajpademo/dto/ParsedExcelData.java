@@ -20,6 +20,8 @@ public class ParsedExcelData {
         private TaskType taskType;
         private List<RowData> rows;
         private Integer rowCount;
+        private List<RowValidationError> rejectedRows;
+        private Integer rejectedRowCount;
     }
     
     @Data
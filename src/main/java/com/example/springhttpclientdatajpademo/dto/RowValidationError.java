@@ -0,0 +1,14 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class RowValidationError {
+    private String sheetName;
+    private Integer rowNumber;
+    private List<String> errors;
+}
@@ -0,0 +1,44 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Snapshot of a task's status and progress, pushed to SSE subscribers
+ */
+@Data
+@Builder
+public class TaskProgressEvent {
+    private UUID taskId;
+    private UUID uploadBatchId;
+    private TaskStatus status;
+    private Integer rowCount;
+    private Integer processedRows;
+    private String errorMessage;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Publish order within this node, 0 for snapshots read from the database
+     */
+    @JsonIgnore
+    private long version;
+
+    public static TaskProgressEvent from(Task task, long version) {
+        return TaskProgressEvent.builder()
+            .taskId(task.getId())
+            .uploadBatchId(task.getUploadBatchId())
+            .status(task.getTaskStatus())
+            .rowCount(task.getRowCount())
+            .processedRows(task.getProcessedRows())
+            .errorMessage(task.getErrorMessage())
+            .updatedAt(task.getUpdatedAt())
+            .version(version)
+            .build();
+    }
+}
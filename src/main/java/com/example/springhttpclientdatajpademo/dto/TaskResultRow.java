@@ -0,0 +1,39 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One input row of a task together with its evaluation result
+ * Also the line format of archive files, so rows read back from an archive look the same as rows read
+ * from the database. The result fields are absent for rows that were never evaluated.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskResultRow {
+    private Integer rowNumber;
+    private String question;
+    private String goldenAnswer;
+    private List<String> goldenCitations;
+    private Map<String, String> metadata;
+    private String apiAnswer;
+    private JsonNode apiCitations;
+    private BigDecimal answerSimilarity;
+    private BigDecimal citationSimilarity;
+    private Integer processingTimeMs;
+    private JsonNode apiResponseMetadata;
+    private String errorMessage;
+    private LocalDateTime evaluatedAt;
+}
@@ -0,0 +1,18 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Test run request body, both lists default to everything approved in app.test-automation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunRequest {
+    private List<String> testUsers;
+    private List<String> questions;
+}
@@ -0,0 +1,21 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of PUT/PATCH /rest/v1/tasks/{id}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateTaskRequest {
+
+    public static final String ACTION_CANCEL = "cancel";
+
+    /**
+     * Action to perform on the task, only "cancel" is supported
+     */
+    private String action;
+}
@@ -0,0 +1,17 @@
+package com.example.springhttpclientdatajpademo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Queued (not yet claimed) work of one user
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserQueueSummary {
+    private String userId;
+    private Long tasks;
+    private Long rowCount;
+}
@@ -40,6 +40,12 @@ public class ChatEvaluationInput {
     @Column("metadata")
     private JsonNode metadata;
     
+    @Column("golden_citations_packed")
+    private PackedStrings goldenCitationsPacked;
+    
+    @Column("metadata_packed")
+    private PackedStrings metadataPacked;
+    
     @Column("created_at")
     private LocalDateTime createdAt;
     
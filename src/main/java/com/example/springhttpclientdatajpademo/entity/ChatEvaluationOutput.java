@@ -0,0 +1,58 @@
+package com.example.springhttpclientdatajpademo.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("chat_evaluation_output")
+public class ChatEvaluationOutput {
+    
+    @Id
+    private Long id;
+    
+    @Column("task_id")
+    private UUID taskId;
+    
+    @Column("input_id")
+    private Long inputId;
+    
+    @Column("api_answer")
+    private String apiAnswer;
+    
+    @Column("api_citations")
+    private JsonNode apiCitations;
+    
+    @Column("answer_similarity")
+    private BigDecimal answerSimilarity;
+    
+    @Column("citation_similarity")
+    private BigDecimal citationSimilarity;
+    
+    @Column("processing_time_ms")
+    private Integer processingTimeMs;
+    
+    @Column("api_response_metadata")
+    private JsonNode apiResponseMetadata;
+    
+    /**
+     * Why a test run call got no answer, null for answered calls
+     */
+    @Column("error_message")
+    private String errorMessage;
+    
+    @Column("created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,129 @@
+package com.example.springhttpclientdatajpademo.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a list of strings, used for citation URLs and flat metadata
+ * <p>
+ * Layout: varint count, then per entry a varint length of the prefix shared with the previous
+ * entry, a varint suffix length and the UTF-8 suffix bytes. Citation lists are mostly URLs on the
+ * same few hosts, so front coding removes most of the repeated bytes, and decoding is a single
+ * pass without building a JSON tree.
+ */
+public final class PackedStrings {
+
+    private static final PackedStrings EMPTY = new PackedStrings(new byte[] {0});
+
+    private final byte[] bytes;
+
+    private PackedStrings(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Encode a list of strings
+     */
+    public static PackedStrings of(List<String> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarInt(out, values.size());
+        byte[] previous = new byte[0];
+        for (String value : values) {
+            byte[] current = value.getBytes(StandardCharsets.UTF_8);
+            int shared = sharedPrefixLength(previous, current);
+            writeVarInt(out, shared);
+            writeVarInt(out, current.length - shared);
+            out.write(current, shared, current.length - shared);
+            previous = current;
+        }
+        return new PackedStrings(out.toByteArray());
+    }
+
+    /**
+     * Wrap an encoded value as read from the database
+     */
+    public static PackedStrings wrap(byte[] bytes) {
+        return new PackedStrings(bytes);
+    }
+
+    /**
+     * Encoded representation
+     */
+    public byte[] toByteArray() {
+        return bytes;
+    }
+
+    /**
+     * Decode all entries
+     */
+    public List<String> values() {
+        int[] position = {0};
+        int count = readVarInt(bytes, position);
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>(count);
+        byte[] previous = new byte[0];
+        for (int i = 0; i < count; i++) {
+            int shared = readVarInt(bytes, position);
+            int suffixLength = readVarInt(bytes, position);
+            byte[] current = Arrays.copyOf(previous, shared + suffixLength);
+            System.arraycopy(bytes, position[0], current, shared, suffixLength);
+            position[0] += suffixLength;
+            values.add(new String(current, StandardCharsets.UTF_8));
+            previous = current;
+        }
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PackedStrings packed && Arrays.equals(bytes, packed.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return values().toString();
+    }
+
+    private static int sharedPrefixLength(byte[] previous, byte[] current) {
+        int max = Math.min(previous.length, current.length);
+        int shared = 0;
+        while (shared < max && previous[shared] == current[shared]) {
+            shared++;
+        }
+        return shared;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
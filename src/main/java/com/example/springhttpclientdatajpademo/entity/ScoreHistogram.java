@@ -0,0 +1,232 @@
+package com.example.springhttpclientdatajpademo.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distribution of similarity scores in [0, 1], used for per-task and per-batch evaluation statistics
+ * <p>
+ * Scores are counted in 100 buckets of width 0.01 plus one bucket for exactly 1.0, each bucket also keeping
+ * the smallest and largest score it holds. A percentile is the middle of its bucket clamped to those, so it
+ * is within half a bucket of the true value whatever the number of rows, and exact when all scores in the
+ * bucket are equal (e.g. every citation score 0.0). Two histograms merge by adding their buckets and taking
+ * the outer bounds, which is what lets batch statistics be combined from task statistics without reading
+ * any results. Stored as a varint per bucket, mostly single zero bytes, followed by the bounds of the
+ * non-empty buckets in units of the scores' four decimals.
+ */
+public final class ScoreHistogram {
+
+    public static final int BUCKETS = 101;
+
+    /**
+     * Scores are stored with four decimals, bounds are kept as whole multiples of 0.0001
+     */
+    private static final int SCALE = 10_000;
+
+    private final long[] counts;
+    private final int[] min;
+    private final int[] max;
+    private long count;
+    private double sum;
+
+    public ScoreHistogram() {
+        this(new long[BUCKETS], emptyBounds(), emptyBounds(), 0, 0.0);
+    }
+
+    private ScoreHistogram(long[] counts, int[] min, int[] max, long count, double sum) {
+        this.counts = counts;
+        this.min = min;
+        this.max = max;
+        this.count = count;
+        this.sum = sum;
+    }
+
+    /**
+     * Restore a histogram as read from the database
+     * @param bytes Encoded buckets, null for an empty histogram
+     * @param sum Sum of all recorded scores
+     */
+    public static ScoreHistogram of(byte[] bytes, double sum) {
+        long[] counts = new long[BUCKETS];
+        int[] min = emptyBounds();
+        int[] max = emptyBounds();
+        long count = 0;
+        if (bytes != null) {
+            int[] position = {0};
+            for (int i = 0; i < BUCKETS && position[0] < bytes.length; i++) {
+                counts[i] = readVarLong(bytes, position);
+                count += counts[i];
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                if (position[0] < bytes.length) {
+                    min[i] = (int) readVarLong(bytes, position);
+                    max[i] = (int) readVarLong(bytes, position);
+                } else {
+                    // Encoded without bounds, fall back to the edges of the bucket
+                    min[i] = lowerEdge(i);
+                    max[i] = upperEdge(i);
+                }
+            }
+        }
+        return new ScoreHistogram(counts, min, max, count, sum);
+    }
+
+    /**
+     * Record one score, values outside [0, 1] are clamped
+     */
+    public void add(double score) {
+        double clamped = Math.max(0.0, Math.min(1.0, score));
+        int bucket = bucket(clamped);
+        int scaled = (int) Math.round(clamped * SCALE);
+        if (counts[bucket]++ == 0) {
+            min[bucket] = scaled;
+            max[bucket] = scaled;
+        } else {
+            min[bucket] = Math.min(min[bucket], scaled);
+            max[bucket] = Math.max(max[bucket], scaled);
+        }
+        count++;
+        sum += clamped;
+    }
+
+    /**
+     * Add all scores of another histogram to this one
+     */
+    public ScoreHistogram merge(ScoreHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (other.counts[i] == 0) {
+                continue;
+            }
+            if (counts[i] == 0) {
+                min[i] = other.min[i];
+                max[i] = other.max[i];
+            } else {
+                min[i] = Math.min(min[i], other.min[i]);
+                max[i] = Math.max(max[i], other.max[i]);
+            }
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        return this;
+    }
+
+    public ScoreHistogram copy() {
+        return new ScoreHistogram(counts.clone(), min.clone(), max.clone(), count, sum);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Mean score, null when nothing was recorded
+     */
+    public Double mean() {
+        return count > 0 ? sum / count : null;
+    }
+
+    /**
+     * Nearest-rank percentile, reported as the middle of the bucket it falls in clamped to the smallest and
+     * largest score recorded in that bucket
+     * @param quantile Between 0 and 1, e.g. 0.9 for the 90th percentile
+     * @return Null when nothing was recorded
+     */
+    public Double percentile(double quantile) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                double middle = i == BUCKETS - 1 ? 1.0 : (i + 0.5) / (BUCKETS - 1);
+                return Math.max((double) min[i] / SCALE, Math.min((double) max[i] / SCALE, middle));
+            }
+        }
+        return 1.0;
+    }
+
+    /**
+     * Counts in equally wide bins from 0 to 1, a score of exactly 1.0 falls in the last bin
+     * @param bins Number of bins, must divide 100
+     */
+    public List<Long> histogram(int bins) {
+        int width = (BUCKETS - 1) / bins;
+        long[] binned = new long[bins];
+        for (int i = 0; i < BUCKETS; i++) {
+            binned[Math.min(i / width, bins - 1)] += counts[i];
+        }
+        List<Long> histogram = new ArrayList<>(bins);
+        Arrays.stream(binned).forEach(histogram::add);
+        return histogram;
+    }
+
+    /**
+     * Encoded buckets for the database, the sum is stored separately
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUCKETS);
+        for (long bucketCount : counts) {
+            writeVarLong(out, bucketCount);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                writeVarLong(out, min[i]);
+                writeVarLong(out, max[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static int bucket(double score) {
+        // Scores have four decimals, the epsilon keeps e.g. 0.29 from landing in the 0.28 bucket
+        return (int) Math.min(BUCKETS - 1, Math.floor(score * (BUCKETS - 1) + 1e-9));
+    }
+
+    private static int lowerEdge(int bucket) {
+        return bucket * SCALE / (BUCKETS - 1);
+    }
+
+    private static int upperEdge(int bucket) {
+        return bucket == BUCKETS - 1 ? SCALE : (bucket + 1) * SCALE / (BUCKETS - 1) - 1;
+    }
+
+    private static int[] emptyBounds() {
+        return new int[BUCKETS];
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -47,6 +47,9 @@ public class Task {
     @Column("processed_rows")
     private Integer processedRows;
     
+    @Column("priority")
+    private Integer priority;
+    
     @Column("created_at")
     private LocalDateTime createdAt;
     
@@ -62,6 +65,12 @@ public class Task {
     @Column("cancelled_at")
     private LocalDateTime cancelledAt;
     
+    @Column("deleted_at")
+    private LocalDateTime deletedAt;
+    
+    @Column("archived_at")
+    private LocalDateTime archivedAt;
+    
     @Column("error_message")
     private String errorMessage;
 } 
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.example.springhttpclientdatajpademo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Aggregated similarity scores, failures and processing times of one task's results, maintained while the task
+ * is processed
+ * Histograms are {@link ScoreHistogram} buckets, so the row never needs the results to be re-read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("task_evaluation_stats")
+public class TaskEvaluationStats {
+
+    @Id
+    @Column("task_id")
+    private UUID taskId;
+
+    @Column("upload_batch_id")
+    private UUID uploadBatchId;
+
+    @Column("result_count")
+    private Long resultCount;
+
+    @Column("answer_similarity_sum")
+    private Double answerSimilaritySum;
+
+    @Column("citation_similarity_sum")
+    private Double citationSimilaritySum;
+
+    @Column("failed_count")
+    private Long failedCount;
+
+    @Column("processing_time_ms_sum")
+    private Long processingTimeMsSum;
+
+    @Column("answer_similarity_histogram")
+    private byte[] answerSimilarityHistogram;
+
+    @Column("citation_similarity_histogram")
+    private byte[] citationSimilarityHistogram;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,41 @@
+package com.example.springhttpclientdatajpademo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Task lifecycle event written in the same transaction as the task change,
+ * read by the other nodes to learn about work they did not create themselves
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("task_outbox")
+public class TaskOutboxEvent {
+
+    public static final String TASK_QUEUED = "task-queued";
+
+    @Id
+    private Long id;
+
+    @Column("task_id")
+    private UUID taskId;
+
+    @Column("event_type")
+    private String eventType;
+
+    @Column("origin_node")
+    private UUID originNode;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package com.example.springhttpclientdatajpademo.enums;
+
+/**
+ * Storage format for golden citations and metadata of chat_evaluation_input rows
+ */
+public enum InputStorageFormat {
+    /**
+     * JSON text in golden_citations / metadata
+     */
+    JSON,
+
+    /**
+     * Front-coded binary lists in golden_citations_packed / metadata_packed
+     */
+    COMPACT
+}
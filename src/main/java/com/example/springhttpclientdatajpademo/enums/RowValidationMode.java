@@ -0,0 +1,18 @@
+package com.example.springhttpclientdatajpademo.enums;
+
+/**
+ * How an upload is handled when some of its rows fail validation
+ */
+public enum RowValidationMode {
+    /**
+     * Reject the whole upload with a row error report, nothing is persisted (the file is one transaction)
+     * The transaction holds a single connection, so the file's sheets are saved one at a time.
+     */
+    REJECT_FILE,
+
+    /**
+     * Persist the valid rows and return the rejected ones in the response, the default
+     * Every sheet commits in its own transaction, so sheets are saved concurrently.
+     */
+    SKIP_INVALID_ROWS
+}
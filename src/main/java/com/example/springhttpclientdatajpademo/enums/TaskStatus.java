@@ -21,6 +21,13 @@ public enum TaskStatus {
         return value;
     }
 
+    /**
+     * Whether the task can no longer change status
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED || this == FAILED;
+    }
+
     @JsonCreator
     public static TaskStatus fromValue(String value) {
         for (TaskStatus status : TaskStatus.values()) {
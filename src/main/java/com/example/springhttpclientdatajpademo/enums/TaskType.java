@@ -4,7 +4,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
 public enum TaskType {
-    CHAT_EVALUATION("chat-evaluation");
+    CHAT_EVALUATION("chat-evaluation"),
+    TEST_AUTOMATION("test-automation");
 
     private final String value;
 
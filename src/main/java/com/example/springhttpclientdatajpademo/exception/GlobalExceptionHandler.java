@@ -1,5 +1,6 @@
 package com.example.springhttpclientdatajpademo.exception;
 
+import com.example.springhttpclientdatajpademo.dto.RowValidationError;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -7,9 +8,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -30,6 +33,52 @@ public class GlobalExceptionHandler {
         return Mono.just(ResponseEntity.badRequest().body(error));
     }
 
+    @ExceptionHandler(RowValidationException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleRowValidationException(RowValidationException ex) {
+        log.warn("Upload rejected: {}", ex.getMessage());
+        
+        ErrorResponse error = ErrorResponse.builder()
+            .code("ROW_VALIDATION_FAILED")
+            .message(ex.getMessage())
+            .details(String.format("Showing %d of %d rejected rows", 
+                ex.getRowErrors().size(), ex.getRejectedRowCount()))
+            .rowErrors(ex.getRowErrors())
+            .timestamp(LocalDateTime.now())
+            .traceId(UUID.randomUUID().toString())
+            .build();
+            
+        return Mono.just(ResponseEntity.badRequest().body(error));
+    }
+
+    @ExceptionHandler(InvalidTaskStatusException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleInvalidTaskStatusException(InvalidTaskStatusException ex) {
+        log.warn("Invalid task status: {}", ex.getMessage());
+        
+        ErrorResponse error = ErrorResponse.builder()
+            .code("INVALID_STATUS")
+            .message(ex.getMessage())
+            .details(ex.getDetails())
+            .timestamp(LocalDateTime.now())
+            .traceId(UUID.randomUUID().toString())
+            .build();
+            
+        return Mono.just(ResponseEntity.badRequest().body(error));
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleServerWebInputException(ServerWebInputException ex) {
+        log.warn("Invalid request input: {}", ex.getReason());
+        
+        ErrorResponse error = ErrorResponse.builder()
+            .code("INVALID_REQUEST")
+            .message(ex.getReason())
+            .timestamp(LocalDateTime.now())
+            .traceId(UUID.randomUUID().toString())
+            .build();
+            
+        return Mono.just(ResponseEntity.badRequest().body(error));
+    }
+
     @ExceptionHandler(UnsupportedOperationException.class)
     public Mono<ResponseEntity<ErrorResponse>> handleUnsupportedOperationException(UnsupportedOperationException ex) {
         log.error("Operation not implemented: {}", ex.getMessage());
@@ -65,6 +114,7 @@ public class GlobalExceptionHandler {
         private String code;
         private String message;
         private String details;
+        private List<RowValidationError> rowErrors;
         private LocalDateTime timestamp;
         private String traceId;
     }
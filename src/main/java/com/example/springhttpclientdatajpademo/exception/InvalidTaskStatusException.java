@@ -0,0 +1,17 @@
+package com.example.springhttpclientdatajpademo.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a task cannot be changed in its current status, e.g. cancelling a completed task
+ */
+@Getter
+public class InvalidTaskStatusException extends RuntimeException {
+
+    private final String details;
+
+    public InvalidTaskStatusException(String message, String details) {
+        super(message);
+        this.details = details;
+    }
+}
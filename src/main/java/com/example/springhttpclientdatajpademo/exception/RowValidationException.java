@@ -0,0 +1,23 @@
+package com.example.springhttpclientdatajpademo.exception;
+
+import com.example.springhttpclientdatajpademo.dto.RowValidationError;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when an upload is rejected because some of its rows failed validation
+ * Carries a bounded report of the failing rows and the total number of failures
+ */
+@Getter
+public class RowValidationException extends RuntimeException {
+
+    private final List<RowValidationError> rowErrors;
+    private final int rejectedRowCount;
+
+    public RowValidationException(List<RowValidationError> rowErrors, int rejectedRowCount) {
+        super(String.format("%d row(s) failed validation", rejectedRowCount));
+        this.rowErrors = rowErrors;
+        this.rejectedRowCount = rejectedRowCount;
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.springhttpclientdatajpademo.repository;
 
 import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
@@ -13,4 +17,29 @@ public interface ChatEvaluationInputRepository extends ReactiveCrudRepository<Ch
     Flux<ChatEvaluationInput> findByTaskId(UUID taskId);
     
     Flux<ChatEvaluationInput> findByTaskIdOrderByRowNumber(UUID taskId);
-} 
\ No newline at end of file
+
+    /**
+     * Rows of a task after the given row number that have no evaluation result yet
+     */
+    @Query("SELECT i.* FROM chat_evaluation_input i WHERE i.task_id = :taskId AND i.row_number > :afterRowNumber "
+        + "AND NOT EXISTS (SELECT 1 FROM chat_evaluation_output o WHERE o.input_id = i.id) "
+        + "ORDER BY i.row_number LIMIT :limit")
+    Flux<ChatEvaluationInput> findPending(UUID taskId, int afterRowNumber, int limit);
+
+    /**
+     * Rows of a task after the given row number, used to read a task's rows page by page
+     */
+    @Query("SELECT * FROM chat_evaluation_input WHERE task_id = :taskId AND row_number > :afterRowNumber "
+        + "ORDER BY row_number LIMIT :limit")
+    Flux<ChatEvaluationInput> findPage(UUID taskId, int afterRowNumber, int limit);
+
+    /**
+     * Next chunk of a task's row ids, used to delete large tasks in bounded statements
+     */
+    @Query("SELECT id FROM chat_evaluation_input WHERE task_id = :taskId ORDER BY id LIMIT :limit")
+    Flux<Long> findIdsByTaskId(UUID taskId, int limit);
+
+    @Modifying
+    @Query("DELETE FROM chat_evaluation_input WHERE id IN (:ids)")
+    Mono<Integer> deleteByIds(Collection<Long> ids);
+}
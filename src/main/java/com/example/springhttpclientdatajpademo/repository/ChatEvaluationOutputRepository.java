@@ -0,0 +1,31 @@
+package com.example.springhttpclientdatajpademo.repository;
+
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface ChatEvaluationOutputRepository extends ReactiveCrudRepository<ChatEvaluationOutput, Long> {
+    
+    Flux<ChatEvaluationOutput> findByTaskId(UUID taskId);
+
+    @Query("SELECT * FROM chat_evaluation_output WHERE input_id IN (:inputIds)")
+    Flux<ChatEvaluationOutput> findByInputIds(Collection<Long> inputIds);
+
+    /**
+     * Next chunk of a task's result ids, used to delete large tasks in bounded statements
+     */
+    @Query("SELECT id FROM chat_evaluation_output WHERE task_id = :taskId ORDER BY id LIMIT :limit")
+    Flux<Long> findIdsByTaskId(UUID taskId, int limit);
+
+    @Modifying
+    @Query("DELETE FROM chat_evaluation_output WHERE id IN (:ids)")
+    Mono<Integer> deleteByIds(Collection<Long> ids);
+}
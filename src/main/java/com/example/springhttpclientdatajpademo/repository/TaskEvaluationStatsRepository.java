@@ -0,0 +1,14 @@
+package com.example.springhttpclientdatajpademo.repository;
+
+import com.example.springhttpclientdatajpademo.entity.TaskEvaluationStats;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+@Repository
+public interface TaskEvaluationStatsRepository extends ReactiveCrudRepository<TaskEvaluationStats, UUID> {
+
+    Flux<TaskEvaluationStats> findByUploadBatchId(UUID uploadBatchId);
+}
@@ -0,0 +1,25 @@
+package com.example.springhttpclientdatajpademo.repository;
+
+import com.example.springhttpclientdatajpademo.entity.TaskOutboxEvent;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TaskOutboxRepository extends ReactiveCrudRepository<TaskOutboxEvent, Long> {
+
+    @Query("SELECT * FROM task_outbox WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<TaskOutboxEvent> findAfter(long afterId, int limit);
+
+    @Query("SELECT COALESCE(MAX(id), 0) FROM task_outbox")
+    Mono<Long> findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM task_outbox WHERE created_at < :before")
+    Mono<Integer> deleteCreatedBefore(LocalDateTime before);
+}
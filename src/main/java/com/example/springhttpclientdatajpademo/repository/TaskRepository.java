@@ -1,10 +1,16 @@
 package com.example.springhttpclientdatajpademo.repository;
 
+import com.example.springhttpclientdatajpademo.dto.UserQueueSummary;
 import com.example.springhttpclientdatajpademo.entity.Task;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
@@ -13,4 +19,87 @@ public interface TaskRepository extends ReactiveCrudRepository<Task, UUID> {
     Flux<Task> findByUserId(String userId);
     
     Flux<Task> findByUploadBatchId(UUID uploadBatchId);
-} 
\ No newline at end of file
+
+    @Query("SELECT * FROM tasks WHERE task_status = 'queueing' ORDER BY priority DESC, created_at LIMIT 1")
+    Mono<Task> findNextQueued();
+
+    @Query("SELECT * FROM tasks WHERE task_status = 'queueing' AND user_id NOT IN (:excludedUsers) "
+        + "ORDER BY priority DESC, created_at LIMIT 1")
+    Mono<Task> findNextQueuedExcluding(Collection<String> excludedUsers);
+
+    @Query("SELECT user_id, COUNT(*) AS tasks, SUM(row_count - processed_rows) AS row_count "
+        + "FROM tasks WHERE task_status = 'queueing' GROUP BY user_id")
+    Flux<UserQueueSummary> summarizeQueued();
+
+    /**
+     * Move a queued task to processing, returns 0 when another worker got there first
+     */
+    @Modifying
+    @Query("UPDATE tasks SET task_status = 'processing', started_at = :now, updated_at = :now "
+        + "WHERE id = :id AND task_status = 'queueing'")
+    Mono<Integer> claim(UUID id, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE tasks SET processed_rows = processed_rows + 1, updated_at = :now WHERE id = :id")
+    Mono<Integer> incrementProcessedRows(UUID id, LocalDateTime now);
+
+    /**
+     * Record the final status of a processing task, returns 0 when it was cancelled in the meantime
+     */
+    @Modifying
+    @Query("UPDATE tasks SET task_status = :status, error_message = :errorMessage, updated_at = :now, "
+        + "completed_at = CASE WHEN :status = 'completed' THEN :now ELSE completed_at END "
+        + "WHERE id = :id AND task_status = 'processing'")
+    Mono<Integer> finish(UUID id, String status, String errorMessage, LocalDateTime now);
+
+    /**
+     * Cancel a task that has not finished yet, returns 0 when it already reached a terminal status
+     */
+    @Modifying
+    @Query("UPDATE tasks SET task_status = 'cancelled', cancelled_at = :now, updated_at = :now "
+        + "WHERE id = :id AND task_status IN ('queueing', 'processing')")
+    Mono<Integer> cancel(UUID id, LocalDateTime now);
+
+    /**
+     * Hide a task from the API and hand its rows to the background reclaimer
+     * A queued task is cancelled at the same time so no worker picks it up, a processing one is left alone.
+     * Returns 0 when the task is processing or already deleted.
+     */
+    @Modifying
+    @Query("UPDATE tasks SET deleted_at = :now, updated_at = :now, "
+        + "cancelled_at = CASE WHEN task_status = 'queueing' THEN :now ELSE cancelled_at END, "
+        + "task_status = CASE WHEN task_status = 'queueing' THEN 'cancelled' ELSE task_status END "
+        + "WHERE id = :id AND deleted_at IS NULL AND task_status <> 'processing'")
+    Mono<Integer> markDeleted(UUID id, LocalDateTime now);
+
+    @Query("SELECT * FROM tasks WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT :limit")
+    Flux<Task> findDeleted(int limit);
+
+    /**
+     * Completed tasks whose rows are still in the database and that finished before the cutoff
+     */
+    @Query("SELECT * FROM tasks WHERE task_status = 'completed' AND completed_at < :cutoff "
+        + "AND archived_at IS NULL AND deleted_at IS NULL ORDER BY completed_at LIMIT :limit")
+    Flux<Task> findArchivable(LocalDateTime cutoff, int limit);
+
+    /**
+     * Switch reads of a task's rows to its archive file
+     * Returns 0 when the task was deleted or archived in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE tasks SET archived_at = :now WHERE id = :id AND archived_at IS NULL AND deleted_at IS NULL")
+    Mono<Integer> markArchived(UUID id, LocalDateTime now);
+
+    /**
+     * Archived tasks whose rows were not removed yet, e.g. because the node stopped halfway
+     */
+    @Query("SELECT t.* FROM tasks t WHERE t.archived_at IS NOT NULL AND t.deleted_at IS NULL "
+        + "AND EXISTS (SELECT 1 FROM chat_evaluation_input i WHERE i.task_id = t.id) LIMIT :limit")
+    Flux<Task> findArchivedWithRows(int limit);
+
+    /**
+     * Which of the given tasks have been cancelled, used by workers to pick up cancellations made on other nodes
+     */
+    @Query("SELECT id FROM tasks WHERE task_status = 'cancelled' AND id IN (:ids)")
+    Flux<UUID> findCancelledIn(Collection<UUID> ids);
+}
@@ -0,0 +1,96 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ChatApiProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Calls the chat platform and the answer similarity service for one evaluated row
+ */
+@Slf4j
+@Component
+public class ChatApiClient {
+
+    private final WebClient webClient;
+    private final ChatApiProperties properties;
+
+    public ChatApiClient(WebClient.Builder webClientBuilder, ChatApiProperties properties) {
+        this.properties = properties;
+        WebClient.Builder builder = webClientBuilder.clone()
+            .baseUrl(properties.getBaseUrl())
+            .clientConnector(new ReactorClientHttpConnector(configure(HttpClient.create(), properties)));
+        if (properties.getApiToken() != null && !properties.getApiToken().isBlank()) {
+            builder.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + properties.getApiToken());
+        }
+        this.webClient = builder.build();
+    }
+
+    /**
+     * Ask the chat platform a question
+     */
+    public Mono<ChatAnswer> chat(String question) {
+        return call(properties.getChatPath(), Map.of("question", question), ChatAnswer.class);
+    }
+
+    /**
+     * Semantic similarity of two texts between 0 and 1
+     */
+    public Mono<Double> similarity(String text1, String text2) {
+        return call(properties.getSimilarityPath(), Map.of("text1", text1, "text2", text2), SimilarityScore.class)
+            .map(SimilarityScore::similarity);
+    }
+
+    private <T> Mono<T> call(String path, Object body, Class<T> responseType) {
+        return webClient.post()
+            .uri(path)
+            .bodyValue(body)
+            .retrieve()
+            .bodyToMono(responseType)
+            .timeout(properties.getTimeout())
+            .retryWhen(Retry.backoff(properties.getMaxRetries(), properties.getRetryBackoff())
+                .filter(ChatApiClient::isRetryable)
+                .doBeforeRetry(signal -> log.warn("Retrying {} after failure (attempt {}/{}): {}", path,
+                    signal.totalRetries() + 1, properties.getMaxRetries(), signal.failure().getMessage())));
+    }
+
+    /**
+     * Apply the settings of chat platform calls to a client, whichever connection pool it uses
+     * A response that does not start within the call timeout closes its connection instead of leaving it
+     * busy in the pool after the call already gave up.
+     */
+    static HttpClient configure(HttpClient client, ChatApiProperties properties) {
+        return client.responseTimeout(properties.getTimeout());
+    }
+
+    /**
+     * Server errors, timeouts and connection failures are worth another attempt, client errors are not
+     */
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    /**
+     * Chat platform response
+     */
+    public record ChatAnswer(String answer, List<String> citations, JsonNode metadata) {
+    }
+
+    private record SimilarityScore(double similarity) {
+    }
+}
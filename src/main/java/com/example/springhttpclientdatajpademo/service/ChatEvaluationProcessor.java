@@ -0,0 +1,199 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationInputRepository;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationOutputRepository;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates the rows of claimed chat evaluation tasks and records their progress
+ * Only rows without a stored result are read, so a task that was interrupted resumes where it stopped.
+ * Rows of test runs are asked as their test user by {@link TestAutomationService} instead of being scored.
+ * Which row runs when is decided by {@link ChatEvaluationWorker}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatEvaluationProcessor {
+
+    private final TaskRepository taskRepository;
+    private final ChatEvaluationInputRepository inputRepository;
+    private final ChatEvaluationOutputRepository outputRepository;
+    private final ChatApiClient chatApiClient;
+    private final InputStorageCodec inputStorageCodec;
+    private final TaskProgressService taskProgressService;
+    private final EvaluationStatsService evaluationStatsService;
+    private final TestAutomationService testAutomationService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Announce that a claimed task has started processing
+     */
+    public void started(Task task) {
+        log.info("Processing task: {} ({} rows, {} already processed)",
+            task.getId(), task.getRowCount(), task.getProcessedRows());
+        taskProgressService.publish(task);
+    }
+
+    /**
+     * Read the next rows of a task that have no result yet
+     * @param afterRowNumber Rows up to this row number have already been read
+     * @param limit Maximum number of rows to read
+     */
+    public Flux<ChatEvaluationInput> pendingRows(Task task, int afterRowNumber, int limit) {
+        return inputRepository.findPending(task.getId(), afterRowNumber, limit);
+    }
+
+    /**
+     * Evaluate one row, store its result and add it to the task's statistics
+     */
+    public Mono<ChatEvaluationOutput> evaluateRow(Task task, ChatEvaluationInput input) {
+        return evaluate(task, input)
+            .flatMap(outputRepository::save)
+            .doOnNext(output -> evaluationStatsService.record(task, output));
+    }
+
+    /**
+     * Count an evaluated row in the tasks table and publish the task's progress
+     */
+    public Mono<Void> recordProgress(Task task) {
+        // Rows of a task may finish concurrently, so the counter is incremented in the database
+        return taskRepository.incrementProcessedRows(task.getId(), LocalDateTime.now())
+            .doOnSuccess(updated -> {
+                // A row that finished just as its task was cancelled must not reopen the progress stream
+                if (!task.getTaskStatus().isTerminal()) {
+                    taskProgressService.publish(task);
+                }
+            })
+            .then();
+    }
+
+    /**
+     * Mark a task whose rows have all been evaluated as completed
+     */
+    public Mono<Task> complete(Task task) {
+        return finish(task, TaskStatus.COMPLETED, null);
+    }
+
+    /**
+     * Record that a task was cancelled while this node was processing it
+     * The tasks row has already been updated by whoever cancelled it, only the local state is brought in line.
+     */
+    public void cancelled(Task task) {
+        LocalDateTime now = LocalDateTime.now();
+        log.info("Task {} cancelled after {} of {} rows", task.getId(), task.getProcessedRows(), task.getRowCount());
+        task.setTaskStatus(TaskStatus.CANCELLED);
+        task.setCancelledAt(now);
+        task.setUpdatedAt(now);
+        taskProgressService.publish(task);
+        evaluationStatsService.taskFinished(task.getId());
+        testAutomationService.taskFinished(task.getId());
+    }
+
+    /**
+     * Mark a task as failed, results of the rows evaluated so far are kept
+     * @param rowNumber Row that could not be evaluated, null if its rows could not be read
+     */
+    public Mono<Task> fail(Task task, Integer rowNumber, Throwable error) {
+        log.error("Task {} failed on row {}", task.getId(), rowNumber, error);
+        String message = rowNumber != null
+            ? String.format("Row %d failed: %s", rowNumber, error.getMessage())
+            : "Failed to read rows: " + error.getMessage();
+        return finish(task, TaskStatus.FAILED, message);
+    }
+
+    private Mono<ChatEvaluationOutput> evaluate(Task task, ChatEvaluationInput input) {
+        if (task.getTaskType() == TaskType.TEST_AUTOMATION) {
+            return testAutomationService.ask(task, input);
+        }
+        long started = System.currentTimeMillis();
+        return chatApiClient.chat(input.getQuestion())
+            .flatMap(answer -> chatApiClient.similarity(input.getGoldenAnswer(), nullToEmpty(answer.answer()))
+                .map(answerSimilarity -> {
+                    List<String> apiCitations = answer.citations() != null ? answer.citations() : List.of();
+                    ArrayNode citations = objectMapper.createArrayNode();
+                    apiCitations.forEach(citations::add);
+                    return ChatEvaluationOutput.builder()
+                        .taskId(task.getId())
+                        .inputId(input.getId())
+                        .apiAnswer(nullToEmpty(answer.answer()))
+                        .apiCitations(citations)
+                        .answerSimilarity(score(answerSimilarity))
+                        .citationSimilarity(score(citationSimilarity(inputStorageCodec.citations(input), apiCitations)))
+                        .processingTimeMs((int) (System.currentTimeMillis() - started))
+                        .apiResponseMetadata(answer.metadata())
+                        .createdAt(LocalDateTime.now())
+                        .build();
+                }));
+    }
+
+    private Mono<Task> finish(Task task, TaskStatus status, String errorMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        return taskRepository.finish(task.getId(), status.getValue(), errorMessage, now)
+            // Nothing was updated when the task was cancelled in the meantime, the cancellation stands
+            .filter(updated -> updated > 0)
+            .map(updated -> {
+                task.setTaskStatus(status);
+                task.setErrorMessage(errorMessage);
+                task.setUpdatedAt(now);
+                if (status == TaskStatus.COMPLETED) {
+                    task.setCompletedAt(now);
+                }
+                return task;
+            })
+            .doOnNext(taskProgressService::publish)
+            .doFinally(signal -> {
+                evaluationStatsService.taskFinished(task.getId());
+                testAutomationService.taskFinished(task.getId());
+            });
+    }
+
+    /**
+     * Share of golden citations that the chat platform also returned, ignoring case and trailing slashes
+     * A row without golden citations matches when the platform returned none either
+     */
+    static double citationSimilarity(List<String> golden, List<String> actual) {
+        Set<String> expected = normalize(golden);
+        if (expected.isEmpty()) {
+            return actual.isEmpty() ? 1.0 : 0.0;
+        }
+        Set<String> matched = new HashSet<>(normalize(actual));
+        matched.retainAll(expected);
+        return (double) matched.size() / expected.size();
+    }
+
+    private static Set<String> normalize(List<String> citations) {
+        return citations.stream()
+            .map(citation -> citation.trim().toLowerCase(Locale.ROOT).replaceAll("/+$", ""))
+            .filter(citation -> !citation.isEmpty())
+            .collect(Collectors.toSet());
+    }
+
+    private static BigDecimal score(double value) {
+        return BigDecimal.valueOf(Math.max(0.0, Math.min(1.0, value))).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
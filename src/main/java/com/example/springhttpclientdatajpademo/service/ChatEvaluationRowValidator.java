@@ -0,0 +1,37 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.dto.ParsedExcelData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row-level checks mirroring the chat_evaluation_input constraints
+ * Applied to every row as it is parsed so a bad cell is reported before anything is written
+ */
+class ChatEvaluationRowValidator {
+
+    /**
+     * Validate a parsed row
+     * @param row Parsed row
+     * @return Problems found, empty if the row is valid
+     */
+    List<String> validate(ParsedExcelData.RowData row) {
+        List<String> errors = new ArrayList<>();
+        if (row.getRowNumber() == null || row.getRowNumber() <= 0) {
+            errors.add("row_number must be greater than 0");
+        }
+        if (row.getQuestion() == null) {
+            errors.add("question is required");
+        }
+        if (row.getGoldenAnswer() == null) {
+            errors.add("golden_answer is required");
+        }
+        if (row.getGoldenCitations() == null) {
+            errors.add("golden_citations is required");
+        } else if (!row.getGoldenCitations().isArray()) {
+            errors.add("golden_citations must be a JSON array or a list of URLs");
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.dto.ParsedExcelData;
+import com.example.springhttpclientdatajpademo.dto.RowValidationError;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the rows of a single sheet into {@link ParsedExcelData.SheetData}
+ * Fed either by the streaming XSSF SAX handler or row by row for .xls workbooks
+ * One instance per sheet, not thread-safe
+ */
+class ChatEvaluationSheetReader implements SheetContentsHandler {
+
+    static final String QUESTION = "question";
+    static final String GOLDEN_ANSWER = "golden_answer";
+    static final String GOLDEN_CITATIONS = "golden_citations";
+    static final List<String> REQUIRED_COLUMNS = List.of(QUESTION, GOLDEN_ANSWER, GOLDEN_CITATIONS);
+
+    private final String sheetName;
+    private final int maxRows;
+    private final int maxReportedErrors;
+    private final ObjectMapper objectMapper;
+    private final ChatEvaluationRowValidator rowValidator = new ChatEvaluationRowValidator();
+    private final List<ParsedExcelData.RowData> rows = new ArrayList<>();
+    private final List<RowValidationError> rejectedRows = new ArrayList<>();
+    private int rejectedRowCount;
+
+    private Map<Integer, String> headers;
+    private Map<String, Integer> columnIndex;
+    private int headerRowIndex = -1;
+    private TaskType taskType;
+    private Map<Integer, String> currentRow;
+
+    ChatEvaluationSheetReader(String sheetName, int maxRows, int maxReportedErrors, ObjectMapper objectMapper) {
+        this.sheetName = sheetName;
+        this.maxRows = maxRows;
+        this.maxReportedErrors = maxReportedErrors;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void startRow(int rowNum) {
+        currentRow = new TreeMap<>();
+    }
+
+    @Override
+    public void endRow(int rowNum) {
+        acceptRow(rowNum, currentRow);
+        currentRow = null;
+    }
+
+    @Override
+    public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+        if (cellReference == null || formattedValue == null) {
+            return;
+        }
+        currentRow.put((int) new CellReference(cellReference).getCol(), formattedValue);
+    }
+
+    /**
+     * Accept one physical row of the sheet
+     * @param rowIndex Zero-based row index within the sheet
+     * @param cells Cell text keyed by zero-based column index
+     */
+    void acceptRow(int rowIndex, Map<Integer, String> cells) {
+        if (isBlank(cells)) {
+            return;
+        }
+        if (headers == null) {
+            readHeader(rowIndex, cells);
+            return;
+        }
+        if (taskType == null) {
+            // Unsupported sheet layout, nothing worth keeping
+            return;
+        }
+        if (rows.size() + rejectedRowCount >= maxRows) {
+            throw new IllegalArgumentException(String.format(
+                "Sheet '%s' exceeds the maximum of %d rows", sheetName, maxRows));
+        }
+
+        ParsedExcelData.RowData row = toRowData(rowIndex - headerRowIndex, cells);
+        List<String> errors = rowValidator.validate(row);
+        if (errors.isEmpty()) {
+            rows.add(row);
+            return;
+        }
+
+        rejectedRowCount++;
+        // Only the first few rejects are kept so a badly broken sheet cannot blow up the report
+        if (rejectedRows.size() < maxReportedErrors) {
+            rejectedRows.add(RowValidationError.builder()
+                .sheetName(sheetName)
+                .rowNumber(row.getRowNumber())
+                .errors(errors)
+                .build());
+        }
+    }
+
+    /**
+     * Build the parsed sheet once every row has been accepted
+     */
+    ParsedExcelData.SheetData toSheetData() {
+        return ParsedExcelData.SheetData.builder()
+            .sheetName(sheetName)
+            .taskType(taskType)
+            .rows(rows)
+            .rowCount(rows.size())
+            .rejectedRows(rejectedRows)
+            .rejectedRowCount(rejectedRowCount)
+            .build();
+    }
+
+    /**
+     * Detect task type from a header row
+     * @param headers Header cell values in column order
+     * @return Detected task type or null if not supported
+     */
+    static TaskType detectTaskType(Collection<String> headers) {
+        return missingRequiredColumns(headers).isEmpty() ? TaskType.CHAT_EVALUATION : null;
+    }
+
+    /**
+     * Reject header rows that carry some but not all of the required columns
+     * Sheets with none of them (instructions, lookups, ...) are allowed and skipped later
+     * @throws IllegalArgumentException if the header row is incomplete
+     */
+    static void checkHeaders(String sheetName, Collection<String> headers) {
+        List<String> missing = missingRequiredColumns(headers);
+        if (!missing.isEmpty() && missing.size() < REQUIRED_COLUMNS.size()) {
+            throw new IllegalArgumentException(String.format(
+                "Sheet '%s' is missing required column(s): %s", sheetName, String.join(", ", missing)));
+        }
+    }
+
+    static String normalizeHeader(String header) {
+        return header == null ? "" : header.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> missingRequiredColumns(Collection<String> headers) {
+        Set<String> normalized = headers.stream()
+            .map(ChatEvaluationSheetReader::normalizeHeader)
+            .collect(Collectors.toSet());
+        return REQUIRED_COLUMNS.stream()
+            .filter(column -> !normalized.contains(column))
+            .toList();
+    }
+
+    private void readHeader(int rowIndex, Map<Integer, String> cells) {
+        headerRowIndex = rowIndex;
+        headers = new HashMap<>();
+        columnIndex = new HashMap<>();
+        cells.forEach((column, value) -> {
+            String header = normalizeHeader(value);
+            headers.put(column, header);
+            columnIndex.putIfAbsent(header, column);
+        });
+
+        checkHeaders(sheetName, headers.values());
+        taskType = detectTaskType(headers.values());
+    }
+
+    private ParsedExcelData.RowData toRowData(int rowNumber, Map<Integer, String> cells) {
+        ObjectNode metadata = objectMapper.createObjectNode();
+        cells.forEach((column, value) -> {
+            String header = headers.get(column);
+            if (header != null && !header.isEmpty() && !isRequiredColumn(header) && !value.isBlank()) {
+                metadata.put(header, value);
+            }
+        });
+
+        return ParsedExcelData.RowData.builder()
+            .rowNumber(rowNumber)
+            .question(cellValue(cells, QUESTION))
+            .goldenAnswer(cellValue(cells, GOLDEN_ANSWER))
+            .goldenCitations(parseCitations(cellValue(cells, GOLDEN_CITATIONS)))
+            .metadata(metadata.isEmpty() ? null : metadata)
+            .build();
+    }
+
+    /**
+     * Citations are either a JSON array or a list of URLs separated by newlines, commas or semicolons
+     */
+    private JsonNode parseCitations(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.startsWith("[")) {
+            try {
+                return objectMapper.readTree(value);
+            } catch (JsonProcessingException e) {
+                // Keep the raw text, the row validator reports it as not being an array
+                return TextNode.valueOf(value);
+            }
+        }
+
+        ArrayNode citations = objectMapper.createArrayNode();
+        for (String citation : value.split("[\\r\\n,;]+")) {
+            if (!citation.isBlank()) {
+                citations.add(citation.trim());
+            }
+        }
+        return citations;
+    }
+
+    private String cellValue(Map<Integer, String> cells, String header) {
+        String value = cells.get(columnIndex.get(header));
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private static boolean isRequiredColumn(String header) {
+        return REQUIRED_COLUMNS.contains(header);
+    }
+
+    private static boolean isBlank(Map<Integer, String> cells) {
+        return cells == null || cells.values().stream().allMatch(String::isBlank);
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background processor picking up queued tasks
+ * Sleeps until a task-queued notification arrives, so new tasks are claimed within milliseconds and
+ * an idle node issues no queries against the tasks table. A slow fallback poll catches anything whose
+ * notification was missed (tasks left queued by a restart, a failed outbox read, ...).
+ * <p>
+ * Up to app.worker.max-active-tasks tasks are claimed at once (at most max-active-tasks-per-user per user)
+ * and their rows are interleaved by a {@link FairScheduler}, so a large upload does not hold back
+ * everyone else's small tasks. At most app.worker.concurrency rows are evaluated at the same time.
+ * <p>
+ * Every claimed task is registered with the {@link TaskCancellationRegistry}. Cancelling it drops its
+ * buffered rows and disposes its outstanding chat and similarity calls; cancellations made on other nodes
+ * are read from the tasks row every app.worker.cancellation-poll-interval while tasks are running here.
+ */
+@Slf4j
+@Component
+public class ChatEvaluationWorker {
+
+    private final TaskRepository taskRepository;
+    private final TaskQueueService taskQueueService;
+    private final ChatEvaluationProcessor processor;
+    private final TaskCancellationRegistry cancellationRegistry;
+    private final WorkerProperties workerProperties;
+    private final FairScheduler scheduler;
+    private final EvaluationQueueMetrics metrics;
+    private final Sinks.Many<Object> wakeUps = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<Object> queueChanges = Sinks.many().multicast().directBestEffort();
+    private final AtomicInteger runningRows = new AtomicInteger();
+    private final AtomicInteger dispatchWip = new AtomicInteger();
+    private Disposable subscription;
+
+    public ChatEvaluationWorker(TaskRepository taskRepository, TaskQueueService taskQueueService,
+                                ChatEvaluationProcessor processor, TaskCancellationRegistry cancellationRegistry,
+                                WorkerProperties workerProperties, MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.taskQueueService = taskQueueService;
+        this.processor = processor;
+        this.cancellationRegistry = cancellationRegistry;
+        this.workerProperties = workerProperties;
+        this.scheduler = new FairScheduler(userId -> workerProperties.getUserWeights().getOrDefault(userId, 1));
+        this.metrics = new EvaluationQueueMetrics(meterRegistry, scheduler);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!workerProperties.isEnabled() || subscription != null) {
+            return;
+        }
+        Flux<Object> fallbackPolls = Flux.interval(Duration.ZERO, workerProperties.getFallbackPollInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> taskQueueService.purgeOutbox()
+                .onErrorResume(error -> {
+                    log.warn("Failed to purge task outbox", error);
+                    return Mono.empty();
+                })
+                .thenReturn(tick));
+
+        // The first change is read right away, later ones at most once per interval (latest pending one wins).
+        // Subscribed before admission starts, the first round's change would otherwise be dropped.
+        Disposable queueMetrics = queueChanges.asFlux()
+            .onBackpressureLatest()
+            .concatMap(signal -> refreshQueueMetrics()
+                .then(Mono.delay(workerProperties.getQueueMetricsInterval()))
+                .then(), 1)
+            .subscribe();
+        // Bursts of notifications collapse into a single pending admission round
+        Disposable admission = Flux.merge(taskQueueService.queuedTasks(), wakeUps.asFlux(), fallbackPolls)
+            .onBackpressureLatest()
+            .concatMap(signal -> admit()
+                .onErrorResume(error -> {
+                    log.error("Failed to claim queued tasks", error);
+                    return Mono.empty();
+                })
+                .doFinally(ignored -> queueChanged()), 1)
+            .subscribe();
+        subscription = Disposables.composite(admission, queueMetrics, pollCancellations());
+        log.info("Chat evaluation worker started (concurrency {}, max active tasks {})",
+            workerProperties.getConcurrency(), workerProperties.getMaxActiveTasks());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Number of rows currently being evaluated by this node
+     */
+    public int runningRows() {
+        return runningRows.get();
+    }
+
+    /**
+     * Number of tasks currently claimed by this node
+     */
+    public int activeTasks() {
+        return scheduler.activeTaskCount();
+    }
+
+    /**
+     * Claim queued tasks until every task slot is taken or the queue is empty
+     * Only ever runs on one thread at a time, claims across nodes are arbitrated by the conditional update.
+     */
+    private Mono<Void> admit() {
+        return Mono.defer(() -> {
+            if (scheduler.activeTaskCount() >= workerProperties.getMaxActiveTasks()) {
+                return Mono.empty();
+            }
+            return claimNext(scheduler.usersAtLimit(workerProperties.getMaxActiveTasksPerUser()))
+                .flatMap(task -> {
+                    activate(task);
+                    return admit();
+                });
+        });
+    }
+
+    private Mono<Task> claimNext(Set<String> usersAtLimit) {
+        LocalDateTime now = LocalDateTime.now();
+        Mono<Task> candidate = usersAtLimit.isEmpty()
+            ? taskRepository.findNextQueued()
+            : taskRepository.findNextQueuedExcluding(usersAtLimit);
+        return candidate
+            .flatMap(task -> taskRepository.claim(task.getId(), now)
+                .flatMap(claimed -> {
+                    if (claimed == 0) {
+                        // Another node claimed it in the meantime, try the next one
+                        return claimNext(usersAtLimit);
+                    }
+                    task.setTaskStatus(TaskStatus.PROCESSING);
+                    task.setStartedAt(now);
+                    task.setUpdatedAt(now);
+                    if (task.getProcessedRows() == null) {
+                        task.setProcessedRows(0);
+                    }
+                    return Mono.just(task);
+                }));
+    }
+
+    /**
+     * Pick up cancellations made on other nodes from the tasks rows of the tasks running here
+     */
+    private Disposable pollCancellations() {
+        Duration interval = workerProperties.getCancellationPollInterval();
+        if (interval.isZero()) {
+            return Disposables.disposed();
+        }
+        return Flux.interval(interval)
+            .onBackpressureDrop()
+            .concatMap(tick -> {
+                Set<UUID> running = cancellationRegistry.runningTasks();
+                if (running.isEmpty()) {
+                    return Mono.empty();
+                }
+                return taskRepository.findCancelledIn(running)
+                    .doOnNext(cancellationRegistry::cancel)
+                    .onErrorResume(error -> {
+                        log.warn("Failed to check running tasks for cancellation", error);
+                        return Mono.empty();
+                    })
+                    .then();
+            })
+            .subscribe();
+    }
+
+    private Mono<Void> refreshQueueMetrics() {
+        return taskRepository.summarizeQueued()
+            .collectList()
+            .doOnNext(metrics::queuedWork)
+            .onErrorResume(error -> {
+                log.warn("Failed to read queue depth", error);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private void activate(Task task) {
+        Mono<Boolean> cancellation = cancellationRegistry.register(task.getId());
+        FairScheduler.ActiveTask active = scheduler.add(task);
+        cancellation.subscribe(cancelled -> cancelled(active));
+        metrics.taskClaimed(task);
+        processor.started(task);
+        fetchRows(active);
+    }
+
+    private void fetchRows(FairScheduler.ActiveTask active) {
+        int batchSize = workerProperties.getRowBatchSize();
+        processor.pendingRows(active.task(), scheduler.lastRowNumber(active), batchSize)
+            .collectList()
+            .subscribe(
+                rows -> {
+                    scheduler.offerRows(active, rows, rows.size() < batchSize);
+                    if (scheduler.isDone(active)) {
+                        complete(active);
+                    }
+                    dispatch();
+                },
+                error -> {
+                    log.error("Failed to read rows of task {}", active.task().getId(), error);
+                    if (scheduler.fail(active)) {
+                        finished(active, processor.fail(active.task(), null, error));
+                    }
+                });
+    }
+
+    /**
+     * Hand out rows to free evaluation slots
+     * Safe to call from any thread, concurrent calls are folded into the one already running.
+     */
+    private void dispatch() {
+        if (dispatchWip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (runningRows.get() < workerProperties.getConcurrency()) {
+                FairScheduler.RowWork work = scheduler.next();
+                if (work == null) {
+                    break;
+                }
+                runningRows.incrementAndGet();
+                metrics.rowDispatched(work.task().task(), work.waitNanos());
+                evaluate(work);
+            }
+        } while (dispatchWip.decrementAndGet() != 0);
+    }
+
+    private void evaluate(FairScheduler.RowWork work) {
+        FairScheduler.ActiveTask active = work.task();
+        processor.evaluateRow(active.task(), work.input())
+            // Cancelling the task disposes the outstanding chat and similarity calls, the row then completes empty
+            .takeUntilOther(cancellationRegistry.cancellation(active.task().getId()))
+            .doFinally(signal -> {
+                runningRows.decrementAndGet();
+                dispatch();
+            })
+            .subscribe(
+                output -> {
+                    FairScheduler.RowOutcome outcome = scheduler.rowFinished(active, workerProperties.getRowBatchSize());
+                    Mono<Void> progress = processor.recordProgress(active.task())
+                        .onErrorResume(error -> {
+                            log.warn("Failed to record progress of task {}", active.task().getId(), error);
+                            return Mono.empty();
+                        });
+                    if (outcome == FairScheduler.RowOutcome.COMPLETE) {
+                        scheduler.remove(active);
+                        finished(active, progress.then(processor.complete(active.task())));
+                    } else {
+                        progress.subscribe();
+                        if (outcome == FairScheduler.RowOutcome.FETCH_ROWS) {
+                            fetchRows(active);
+                        }
+                    }
+                },
+                error -> {
+                    boolean firstFailure = scheduler.fail(active);
+                    scheduler.rowFinished(active, workerProperties.getRowBatchSize());
+                    if (firstFailure) {
+                        finished(active, processor.fail(active.task(), work.input().getRowNumber(), error));
+                    }
+                });
+    }
+
+    private void complete(FairScheduler.ActiveTask active) {
+        scheduler.remove(active);
+        finished(active, processor.complete(active.task()));
+    }
+
+    /**
+     * Stop a cancelled task, its rows in flight are disposed through the same signal
+     */
+    private void cancelled(FairScheduler.ActiveTask active) {
+        if (!scheduler.fail(active)) {
+            // Already completed or failed
+            return;
+        }
+        processor.cancelled(active.task());
+        cancellationRegistry.unregister(active.task().getId());
+        wakeUp();
+    }
+
+    private void finished(FairScheduler.ActiveTask active, Mono<Task> finalState) {
+        finalState
+            // A task slot just freed up, more work may be waiting
+            .doFinally(signal -> {
+                cancellationRegistry.unregister(active.task().getId());
+                wakeUp();
+            })
+            .subscribe(
+                task -> log.info("Task {} finished with status {}", task.getId(), task.getTaskStatus()),
+                error -> log.error("Failed to record final task status", error));
+    }
+
+    private synchronized void wakeUp() {
+        wakeUps.tryEmitNext(Boolean.TRUE);
+    }
+
+    private synchronized void queueChanged() {
+        queueChanges.tryEmitNext(Boolean.TRUE);
+    }
+}
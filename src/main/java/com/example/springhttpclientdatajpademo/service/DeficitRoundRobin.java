@@ -0,0 +1,68 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import java.util.ArrayDeque;
+import java.util.function.Predicate;
+
+/**
+ * Deficit round-robin over weighted items where every pick costs one unit
+ * An item with weight w is picked w times in a row per round while it has work, items without work
+ * are skipped and lose their credit, so idle items cannot bank turns. Not thread-safe.
+ */
+final class DeficitRoundRobin<T> {
+
+    private final ArrayDeque<Entry<T>> ring = new ArrayDeque<>();
+
+    void add(T item, int weight) {
+        ring.addLast(new Entry<>(item, Math.max(1, weight)));
+    }
+
+    boolean remove(T item) {
+        return ring.removeIf(entry -> entry.item == item);
+    }
+
+    boolean isEmpty() {
+        return ring.isEmpty();
+    }
+
+    int size() {
+        return ring.size();
+    }
+
+    /**
+     * Pick the next item that has work and charge it one unit
+     * @param hasWork Whether an item can be picked right now
+     * @return Picked item or null if none has work
+     */
+    T next(Predicate<T> hasWork) {
+        for (int skipped = 0; skipped < ring.size(); ) {
+            Entry<T> entry = ring.peekFirst();
+            if (!hasWork.test(entry.item)) {
+                entry.deficit = 0;
+                ring.addLast(ring.pollFirst());
+                skipped++;
+                continue;
+            }
+            if (entry.deficit <= 0) {
+                entry.deficit += entry.weight;
+            }
+            entry.deficit--;
+            if (entry.deficit <= 0) {
+                ring.addLast(ring.pollFirst());
+            }
+            return entry.item;
+        }
+        return null;
+    }
+
+    private static final class Entry<T> {
+
+        private final T item;
+        private final int weight;
+        private int deficit;
+
+        private Entry(T item, int weight) {
+            this.item = item;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.DeletionProperties;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationInputRepository;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationOutputRepository;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Background removal of the rows of deleted tasks
+ * Results are removed first, then inputs, then the archive file of an archived task, then the tasks row.
+ * Every chunk is a separate statement (and so a separate short transaction) of at most app.deletion.chunk-size
+ * rows, with a pause of
+ * app.deletion.chunk-interval in between, so a task with tens of thousands of rows never holds locks for
+ * long and concurrent uploads keep their latency. Deleted tasks are processed one at a time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeletedTaskReclaimer {
+
+    private static final int TASKS_PER_SCAN = 10;
+
+    private final TaskRepository taskRepository;
+    private final ChatEvaluationInputRepository inputRepository;
+    private final ChatEvaluationOutputRepository outputRepository;
+    private final TaskArchiveStore archiveStore;
+    private final DeletionProperties deletionProperties;
+    private final Sinks.Many<Object> wakeUps = Sinks.many().multicast().directBestEffort();
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!deletionProperties.isEnabled() || subscription != null) {
+            return;
+        }
+        Flux<Object> polls = Flux.interval(Duration.ZERO, deletionProperties.getPollInterval())
+            .onBackpressureDrop()
+            .cast(Object.class);
+
+        // Deletions requested while a scan runs collapse into a single follow-up scan
+        subscription = Flux.merge(wakeUps.asFlux(), polls)
+            .onBackpressureLatest()
+            .concatMap(signal -> reclaimDeleted()
+                .onErrorResume(error -> {
+                    log.error("Failed to reclaim deleted tasks", error);
+                    return Mono.empty();
+                }), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Start reclaiming soon, called after a task was marked deleted
+     */
+    public synchronized void wakeUp() {
+        wakeUps.tryEmitNext(Boolean.TRUE);
+    }
+
+    /**
+     * Reclaim deleted tasks until none are left
+     */
+    Mono<Void> reclaimDeleted() {
+        return taskRepository.findDeleted(TASKS_PER_SCAN)
+            .concatMap(this::reclaim)
+            .count()
+            .flatMap(reclaimed -> reclaimed < TASKS_PER_SCAN ? Mono.<Void>empty() : reclaimDeleted());
+    }
+
+    private Mono<Task> reclaim(Task task) {
+        UUID taskId = task.getId();
+        long started = System.currentTimeMillis();
+        return deleteRows(taskId)
+            .then(Mono.defer(() -> task.getArchivedAt() != null ? archiveStore.delete(taskId) : Mono.<Void>empty()))
+            // Only the tasks row and its single statistics row are left, so the cascade stays small
+            .then(Mono.defer(() -> taskRepository.deleteById(taskId)))
+            .doOnSuccess(done -> log.info("Reclaimed deleted task {} ({} rows) in {} ms",
+                taskId, task.getRowCount(), System.currentTimeMillis() - started))
+            .thenReturn(task);
+    }
+
+    /**
+     * Remove the results and then the input rows of a task in chunks, also used once a task was archived
+     */
+    Mono<Void> deleteRows(UUID taskId) {
+        return deleteInChunks(taskId, outputRepository::findIdsByTaskId, outputRepository::deleteByIds)
+            .then(Mono.defer(() -> deleteInChunks(taskId, inputRepository::findIdsByTaskId, inputRepository::deleteByIds)));
+    }
+
+    /**
+     * Delete rows chunk by chunk until a chunk comes back short
+     */
+    private Mono<Void> deleteInChunks(UUID taskId,
+                                      BiFunction<UUID, Integer, Flux<Long>> nextIds,
+                                      Function<List<Long>, Mono<Integer>> delete) {
+        int chunkSize = deletionProperties.getChunkSize();
+        return nextIds.apply(taskId, chunkSize)
+            .collectList()
+            .flatMap(ids -> {
+                if (ids.isEmpty()) {
+                    return Mono.empty();
+                }
+                Mono<Void> deleted = delete.apply(ids).then();
+                if (ids.size() < chunkSize) {
+                    return deleted;
+                }
+                return deleted
+                    .then(Mono.delay(deletionProperties.getChunkInterval()))
+                    .then(deleteInChunks(taskId, nextIds, delete));
+            });
+    }
+}
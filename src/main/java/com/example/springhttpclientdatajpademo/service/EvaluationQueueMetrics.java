@@ -0,0 +1,88 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.dto.UserQueueSummary;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user queue metrics of the background processor
+ * <ul>
+ *   <li>evaluation.queue.depth: rows waiting for evaluation, queued tasks plus the unevaluated rows of claimed ones</li>
+ *   <li>evaluation.queue.wait: time from task creation until it was claimed</li>
+ *   <li>evaluation.row.wait: time a row of a claimed task waited for a free evaluation slot</li>
+ * </ul>
+ * All tagged with the user id. A user's queue depth gauge is removed again once nothing of theirs is
+ * queued or claimed, so the number of series follows the users with work rather than every user ever seen.
+ */
+class EvaluationQueueMetrics {
+
+    private final MeterRegistry registry;
+    private final FairScheduler scheduler;
+    private final Map<String, Long> queuedRows = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> depthGauges = new HashMap<>();
+
+    EvaluationQueueMetrics(MeterRegistry registry, FairScheduler scheduler) {
+        this.registry = registry;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Replace the snapshot of queued (not yet claimed) rows per user
+     */
+    synchronized void queuedWork(List<UserQueueSummary> summaries) {
+        queuedRows.replaceAll((userId, rows) -> 0L);
+        summaries.forEach(summary -> {
+            register(summary.getUserId());
+            queuedRows.put(summary.getUserId(), summary.getRowCount() != null ? summary.getRowCount() : 0L);
+        });
+        depthGauges.entrySet().removeIf(entry -> {
+            String userId = entry.getKey();
+            if (queuedRows.getOrDefault(userId, 0L) > 0 || scheduler.hasTasks(userId)) {
+                return false;
+            }
+            registry.remove(entry.getValue());
+            queuedRows.remove(userId);
+            return true;
+        });
+    }
+
+    void taskClaimed(Task task) {
+        register(task.getUserId());
+        if (task.getCreatedAt() != null) {
+            Duration waited = Duration.between(task.getCreatedAt(), LocalDateTime.now());
+            Timer.builder("evaluation.queue.wait")
+                .description("Time from task creation until a worker claimed it")
+                .tag("user", task.getUserId())
+                .register(registry)
+                .record(waited.isNegative() ? Duration.ZERO : waited);
+        }
+    }
+
+    void rowDispatched(Task task, long waitNanos) {
+        Timer.builder("evaluation.row.wait")
+            .description("Time a row of a claimed task waited for an evaluation slot")
+            .tag("user", task.getUserId())
+            .register(registry)
+            .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void register(String userId) {
+        depthGauges.computeIfAbsent(userId, id -> {
+            queuedRows.putIfAbsent(id, 0L);
+            return Gauge.builder("evaluation.queue.depth", () -> queuedRows.getOrDefault(id, 0L) + scheduler.remainingRows(id))
+                .description("Rows waiting for evaluation")
+                .tag("user", id)
+                .register(registry);
+        });
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.dto.EvaluationStats;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.ScoreHistogram;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.entity.TaskEvaluationStats;
+import com.example.springhttpclientdatajpademo.repository.TaskEvaluationStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-task result statistics (similarity scores, failures and processing time), updated as results are written
+ * <p>
+ * Each result is added to an in-memory accumulator of its task, which is merged into the task's
+ * task_evaluation_stats row every app.worker.stats-flush-rows results, every app.worker.stats-flush-interval
+ * and when the task finishes. Reads combine the row with what this node has not flushed yet, so they never
+ * touch the results table: a task costs one row read, a batch one row per task. Results written by another
+ * node show up once that node flushes. Flushes run one at a time, which makes the read-modify-write of a
+ * row safe as only the node processing a task writes its row.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EvaluationStatsService {
+
+    private final TaskEvaluationStatsRepository statsRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final WorkerProperties workerProperties;
+    private final Map<UUID, Accumulator> accumulators = new ConcurrentHashMap<>();
+    private final Sinks.Many<UUID> flushRequests = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (subscription != null) {
+            return;
+        }
+        Duration interval = workerProperties.getStatsFlushInterval();
+        Flux<UUID> periodic = Flux.interval(interval, interval)
+            .onBackpressureDrop()
+            .concatMapIterable(tick -> List.copyOf(accumulators.keySet()));
+
+        subscription = Flux.merge(flushRequests.asFlux(), periodic)
+            .concatMap(taskId -> flush(taskId)
+                .onErrorResume(error -> {
+                    log.error("Failed to flush evaluation statistics of task: {}", taskId, error);
+                    return Mono.empty();
+                }), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Add a stored result to its task's statistics
+     */
+    public void record(Task task, ChatEvaluationOutput output) {
+        // Adding inside compute keeps a result from landing in an accumulator that is being removed
+        Accumulator accumulator = accumulators.compute(task.getId(), (taskId, current) -> {
+            Accumulator target = current != null ? current : new Accumulator(task.getUploadBatchId());
+            target.add(output);
+            return target;
+        });
+        if (accumulator.pendingCount() % workerProperties.getStatsFlushRows() == 0) {
+            requestFlush(task.getId());
+        }
+    }
+
+    /**
+     * Flush a task's statistics now that no more results are expected for it
+     */
+    public void taskFinished(UUID taskId) {
+        Accumulator accumulator = accumulators.get(taskId);
+        if (accumulator != null) {
+            accumulator.finish();
+            requestFlush(taskId);
+        }
+    }
+
+    /**
+     * Statistics of one task
+     */
+    public Mono<EvaluationStats> taskStats(Task task) {
+        return statsRepository.findById(task.getId())
+            .map(Scores::of)
+            .defaultIfEmpty(new Scores())
+            .map(scores -> scores.merge(unflushed(task.getId())))
+            .map(scores -> scores.toStats(task.getId(), task.getUploadBatchId()));
+    }
+
+    /**
+     * Statistics of an upload batch, combined from the statistics of the given tasks
+     */
+    public Mono<EvaluationStats> batchStats(UUID uploadBatchId, List<Task> tasks) {
+        Set<UUID> taskIds = tasks.stream().map(Task::getId).collect(Collectors.toSet());
+        return statsRepository.findByUploadBatchId(uploadBatchId)
+            .filter(stats -> taskIds.contains(stats.getTaskId()))
+            .map(Scores::of)
+            .reduce(new Scores(), Scores::merge)
+            .map(scores -> {
+                taskIds.forEach(taskId -> scores.merge(unflushed(taskId)));
+                return scores.toStats(null, uploadBatchId);
+            });
+    }
+
+    /**
+     * Merge a task's unflushed results into its row
+     */
+    Mono<Void> flush(UUID taskId) {
+        return Mono.defer(() -> {
+            Accumulator accumulator = accumulators.get(taskId);
+            if (accumulator == null) {
+                return Mono.empty();
+            }
+            Scores delta = accumulator.drain();
+            if (delta == null) {
+                removeIfFinished(taskId);
+                return Mono.empty();
+            }
+            LocalDateTime now = LocalDateTime.now();
+            return statsRepository.findById(taskId)
+                .flatMap(stats -> entityTemplate.update(Scores.of(stats).merge(delta).applyTo(stats, now)))
+                .switchIfEmpty(Mono.defer(() -> entityTemplate.insert(delta.applyTo(TaskEvaluationStats.builder()
+                    .taskId(taskId)
+                    .uploadBatchId(accumulator.uploadBatchId)
+                    .build(), now))))
+                .doOnSuccess(saved -> {
+                    accumulator.flushed();
+                    removeIfFinished(taskId);
+                })
+                // Kept for the next flush
+                .doOnError(error -> accumulator.restore())
+                .then();
+        });
+    }
+
+    private synchronized void requestFlush(UUID taskId) {
+        flushRequests.tryEmitNext(taskId);
+    }
+
+    private Scores unflushed(UUID taskId) {
+        Accumulator accumulator = accumulators.get(taskId);
+        return accumulator != null ? accumulator.snapshot() : new Scores();
+    }
+
+    private void removeIfFinished(UUID taskId) {
+        accumulators.computeIfPresent(taskId, (id, accumulator) -> accumulator.isDone() ? null : accumulator);
+    }
+
+    /**
+     * Answer and citation similarity distributions, failures and processing time of a set of results
+     */
+    static final class Scores {
+
+        private final ScoreHistogram answer;
+        private final ScoreHistogram citation;
+        private long results;
+        private long failed;
+        private long processingTimeMsSum;
+
+        Scores() {
+            this(new ScoreHistogram(), new ScoreHistogram(), 0, 0, 0);
+        }
+
+        private Scores(ScoreHistogram answer, ScoreHistogram citation, long results, long failed,
+                       long processingTimeMsSum) {
+            this.answer = answer;
+            this.citation = citation;
+            this.results = results;
+            this.failed = failed;
+            this.processingTimeMsSum = processingTimeMsSum;
+        }
+
+        static Scores of(TaskEvaluationStats stats) {
+            return new Scores(
+                ScoreHistogram.of(stats.getAnswerSimilarityHistogram(), valueOrZero(stats.getAnswerSimilaritySum())),
+                ScoreHistogram.of(stats.getCitationSimilarityHistogram(), valueOrZero(stats.getCitationSimilaritySum())),
+                valueOrZero(stats.getResultCount()),
+                valueOrZero(stats.getFailedCount()),
+                valueOrZero(stats.getProcessingTimeMsSum()));
+        }
+
+        void add(ChatEvaluationOutput output) {
+            results++;
+            if (output.getErrorMessage() != null) {
+                failed++;
+            } else if (output.getProcessingTimeMs() != null) {
+                processingTimeMsSum += output.getProcessingTimeMs();
+            }
+            // Test runs have no golden answer, their results carry no scores
+            if (output.getAnswerSimilarity() != null) {
+                answer.add(output.getAnswerSimilarity().doubleValue());
+            }
+            if (output.getCitationSimilarity() != null) {
+                citation.add(output.getCitationSimilarity().doubleValue());
+            }
+        }
+
+        boolean isEmpty() {
+            return results == 0;
+        }
+
+        Scores merge(Scores other) {
+            answer.merge(other.answer);
+            citation.merge(other.citation);
+            results += other.results;
+            failed += other.failed;
+            processingTimeMsSum += other.processingTimeMsSum;
+            return this;
+        }
+
+        Scores copy() {
+            return new Scores(answer.copy(), citation.copy(), results, failed, processingTimeMsSum);
+        }
+
+        EvaluationStats toStats(UUID taskId, UUID uploadBatchId) {
+            long answered = results - failed;
+            return EvaluationStats.builder()
+                .taskId(taskId)
+                .uploadBatchId(uploadBatchId)
+                .resultCount(results)
+                .failedCount(failed)
+                .meanProcessingTimeMs(answered > 0 ? Math.round(processingTimeMsSum * 10.0 / answered) / 10.0 : null)
+                .answerSimilarity(EvaluationStats.ScoreSummary.of(answer))
+                .citationSimilarity(EvaluationStats.ScoreSummary.of(citation))
+                .build();
+        }
+
+        TaskEvaluationStats applyTo(TaskEvaluationStats stats, LocalDateTime now) {
+            stats.setResultCount(results);
+            stats.setFailedCount(failed);
+            stats.setProcessingTimeMsSum(processingTimeMsSum);
+            stats.setAnswerSimilaritySum(answer.sum());
+            stats.setCitationSimilaritySum(citation.sum());
+            stats.setAnswerSimilarityHistogram(answer.toByteArray());
+            stats.setCitationSimilarityHistogram(citation.toByteArray());
+            stats.setUpdatedAt(now);
+            return stats;
+        }
+
+        private static double valueOrZero(Double value) {
+            return value != null ? value : 0.0;
+        }
+
+        private static long valueOrZero(Long value) {
+            return value != null ? value : 0L;
+        }
+    }
+
+    /**
+     * Results of one task not yet merged into its row, split into those waiting for a flush and
+     * those being written by the current one
+     */
+    private static final class Accumulator {
+
+        private final UUID uploadBatchId;
+        private Scores pending = new Scores();
+        private Scores inFlight;
+        private boolean finished;
+
+        Accumulator(UUID uploadBatchId) {
+            this.uploadBatchId = uploadBatchId;
+        }
+
+        synchronized void add(ChatEvaluationOutput output) {
+            pending.add(output);
+        }
+
+        synchronized long pendingCount() {
+            return pending.results;
+        }
+
+        synchronized void finish() {
+            finished = true;
+        }
+
+        synchronized Scores drain() {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            inFlight = pending;
+            pending = new Scores();
+            return inFlight;
+        }
+
+        synchronized void flushed() {
+            inFlight = null;
+        }
+
+        synchronized void restore() {
+            if (inFlight != null) {
+                pending.merge(inFlight);
+                inFlight = null;
+            }
+        }
+
+        synchronized Scores snapshot() {
+            Scores snapshot = pending.copy();
+            return inFlight != null ? snapshot.merge(inFlight) : snapshot;
+        }
+
+        synchronized boolean isDone() {
+            return finished && inFlight == null && pending.isEmpty();
+        }
+    }
+}
@@ -1,14 +1,82 @@
 package com.example.springhttpclientdatajpademo.service;
 
+import com.example.springhttpclientdatajpademo.config.ExcelProperties;
+import com.example.springhttpclientdatajpademo.config.FileProperties;
 import com.example.springhttpclientdatajpademo.dto.ParsedExcelData;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+@Slf4j
 @Service
 public class ExcelParsingService {
 
+    /**
+     * Longest signature checked on the first bytes of an upload, the OLE2 header
+     */
+    private static final int MAGIC_LENGTH = 8;
+
+    private final ExcelProperties excelProperties;
+    private final FileProperties fileProperties;
+    private final ObjectMapper objectMapper;
+    private final WorkbookStructureValidator structureValidator;
+    private final Scheduler parsingScheduler;
+
+    public ExcelParsingService(ExcelProperties excelProperties, FileProperties fileProperties,
+                               ObjectMapper objectMapper) {
+        this.excelProperties = excelProperties;
+        this.fileProperties = fileProperties;
+        this.objectMapper = objectMapper;
+        this.structureValidator = new WorkbookStructureValidator(excelProperties);
+        this.parsingScheduler = Schedulers.newBoundedElastic(
+            excelProperties.getSheetParallelism(), Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "excel-parsing");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        parsingScheduler.dispose();
+    }
+
     /**
      * Parse Excel file and extract structured data
      * @param fileData Reactive stream of file data
@@ -16,42 +84,260 @@ public class ExcelParsingService {
      * @return Parsed Excel data with sheets and rows
      */
     public Mono<ParsedExcelData> parseExcelFile(Flux<DataBuffer> fileData, String filename) {
-        // TODO: Implement Excel parsing logic
-        // - Read Excel file from DataBuffer stream
-        // - Detect sheets and analyze structure
-        // - Identify chat evaluation tasks based on column headers
-        // - Extract questions, golden answers, and citations
-        // - Return structured data
-        
-        throw new UnsupportedOperationException("Excel parsing not yet implemented");
+        return parseSheets(fileData, filename)
+            .collectList()
+            .map(sheets -> ParsedExcelData.builder()
+                .filename(filename)
+                .sheets(sheets)
+                .build());
+    }
+
+    /**
+     * Parse an uploaded Excel file sheet by sheet
+     * With app.file.spool-to-disk enabled the upload is transferred to a temp file and the workbook
+     * is opened file-backed, so large uploads never have to be copied onto the heap as a whole.
+     * The temp file is deleted when parsing completes, fails or is cancelled. Uploads that do not start
+     * like a workbook are rejected on their first buffer, before anything is written to disk.
+     * @param filePart Uploaded file
+     * @return Parsed sheets, including sheets whose layout matches no task type
+     */
+    public Flux<ParsedExcelData.SheetData> parseSheets(FilePart filePart) {
+        String filename = filePart.filename();
+        if (!fileProperties.isSpoolToDisk()) {
+            return parseSheets(filePart.content(), filename);
+        }
+
+        return Flux.using(
+            () -> createSpoolFile(filename),
+            spoolFile -> DataBufferUtils.write(checkFileMagic(filePart.content(), filename), spoolFile)
+                .thenMany(parseSheets(spoolFile, filename)),
+            this::deleteSpoolFile)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Parse Excel file sheet by sheet
+     * Sheets of an .xlsx workbook are streamed through SAX independently, so with
+     * app.excel.parallel-sheets enabled up to app.excel.sheet-parallelism of them are parsed
+     * at once on the parsing pool. Sheets are emitted in workbook order. Data that does not start
+     * like a workbook is rejected on its first buffer instead of being read to the end first.
+     * @param fileData Reactive stream of file data
+     * @param filename Original filename
+     * @return Parsed sheets, including sheets whose layout matches no task type
+     */
+    public Flux<ParsedExcelData.SheetData> parseSheets(Flux<DataBuffer> fileData, String filename) {
+        return DataBufferUtils.join(checkFileMagic(fileData, filename))
+            .map(this::toByteArray)
+            .flatMapMany(bytes -> parseWorkbook(
+                () -> FileMagic.valueOf(new BufferedInputStream(new ByteArrayInputStream(bytes))),
+                () -> OPCPackage.open(new ByteArrayInputStream(bytes)),
+                () -> WorkbookFactory.create(new ByteArrayInputStream(bytes)),
+                filename))
+            .doOnComplete(() -> log.debug("Finished parsing sheets of file: {}", filename));
+    }
+
+    /**
+     * Parse Excel file sheet by sheet straight from disk
+     * .xlsx parts are read through random access on the zip file and .xls workbooks are
+     * memory-mapped read-only by POIFS, so neither is copied into a byte array first.
+     * @param file Workbook on local disk
+     * @param filename Original filename
+     * @return Parsed sheets, including sheets whose layout matches no task type
+     */
+    public Flux<ParsedExcelData.SheetData> parseSheets(Path file, String filename) {
+        return parseWorkbook(
+                () -> FileMagic.valueOf(file.toFile()),
+                () -> OPCPackage.open(file.toFile(), PackageAccess.READ),
+                () -> WorkbookFactory.create(file.toFile(), null, true),
+                filename)
+            .doOnComplete(() -> log.debug("Finished parsing sheets of file: {}", filename));
     }
 
     /**
      * Validate Excel file format and size
      * @param filename Original filename
-     * @param fileSize File size in bytes
+     * @param fileSize File size in bytes, or null when not known up front
      * @return Validation result
      */
     public Mono<Boolean> validateExcelFile(String filename, Long fileSize) {
-        // TODO: Implement file validation
-        // - Check file extension (.xlsx, .xls)
-        // - Validate file size limits
-        // - Basic file format validation
-        
-        throw new UnsupportedOperationException("Excel validation not yet implemented");
+        if (filename == null) {
+            return Mono.just(false);
+        }
+        String lowerCaseName = filename.toLowerCase(Locale.ROOT);
+        boolean validExtension = fileProperties.getAllowedTypes().stream()
+            .anyMatch(type -> lowerCaseName.endsWith(type.toLowerCase(Locale.ROOT)));
+        boolean validSize = fileSize == null
+            || (fileSize > 0 && fileSize <= fileProperties.getMaxSize().toBytes());
+        return Mono.just(validExtension && validSize);
     }
 
     /**
      * Detect task type based on Excel sheet structure
-     * @param sheetData Raw sheet data
-     * @return Detected task type or null if not supported
-     */
-    public Mono<String> detectTaskType(Object sheetData) {
-        // TODO: Implement task type detection
-        // - Analyze column headers
-        // - Check for required columns: question, golden_answer, golden_citations
-        // - Return "chat-evaluation" if structure matches
-        
-        throw new UnsupportedOperationException("Task type detection not yet implemented");
-    }
-} 
\ No newline at end of file
+     * @param headers Header row of the sheet
+     * @return Detected task type, empty if not supported
+     */
+    public Mono<TaskType> detectTaskType(Collection<String> headers) {
+        return Mono.justOrEmpty(ChatEvaluationSheetReader.detectTaskType(headers));
+    }
+
+    private Flux<ParsedExcelData.SheetData> parseWorkbook(Callable<FileMagic> fileMagic,
+                                                          Callable<OPCPackage> openPackage,
+                                                          Callable<Workbook> openWorkbook,
+                                                          String filename) {
+        return Mono.fromCallable(fileMagic)
+            .flatMapMany(magic -> switch (magic) {
+                case OOXML -> Flux.using(openPackage, pkg -> parseXlsxSheets(pkg, filename), OPCPackage::revert);
+                case OLE2 -> Mono.fromCallable(() -> parseXlsSheets(openWorkbook, filename)).flatMapIterable(sheets -> sheets);
+                default -> Flux.error(notAWorkbook(filename));
+            })
+            .subscribeOn(parsingScheduler);
+    }
+
+    /**
+     * Pass upload data through once its first buffer starts with a zip or OLE2 signature
+     * A first buffer too short to hold a signature is let through, the full check after reading still
+     * applies.
+     */
+    private Flux<DataBuffer> checkFileMagic(Flux<DataBuffer> fileData, String filename) {
+        return fileData.switchOnFirst((first, all) -> {
+            if (first.hasValue() && !startsLikeWorkbook(first.get())) {
+                DataBufferUtils.release(first.get());
+                return Flux.error(notAWorkbook(filename));
+            }
+            return all;
+        });
+    }
+
+    private static boolean startsLikeWorkbook(DataBuffer buffer) {
+        if (buffer.readableByteCount() < MAGIC_LENGTH) {
+            return true;
+        }
+        byte[] header = new byte[MAGIC_LENGTH];
+        for (int i = 0; i < MAGIC_LENGTH; i++) {
+            header[i] = buffer.getByte(buffer.readPosition() + i);
+        }
+        FileMagic magic = FileMagic.valueOf(header);
+        return magic == FileMagic.OOXML || magic == FileMagic.OLE2;
+    }
+
+    private static IllegalArgumentException notAWorkbook(String filename) {
+        return new IllegalArgumentException("File is not a valid Excel workbook: " + filename);
+    }
+
+    private Flux<ParsedExcelData.SheetData> parseXlsxSheets(OPCPackage pkg, String filename) {
+        try {
+            // Fail fast on structure before paying for shared strings and full sheet parses
+            structureValidator.validate(pkg, filename);
+
+            XSSFReader reader = new XSSFReader(pkg);
+            SharedStrings sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            List<SheetRef> sheetRefs = listSheets(reader);
+
+            return Flux.fromIterable(sheetRefs)
+                .flatMapSequential(sheetRef -> Mono
+                        .fromCallable(() -> parseXlsxSheet(sheetRef, sharedStrings, styles))
+                        .subscribeOn(parsingScheduler),
+                    excelProperties.effectiveSheetParallelism());
+        } catch (Exception e) {
+            return Flux.error(e);
+        }
+    }
+
+    private List<SheetRef> listSheets(XSSFReader reader) throws Exception {
+        List<SheetRef> sheetRefs = new ArrayList<>();
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream ignored = sheets.next()) {
+                sheetRefs.add(new SheetRef(sheets.getSheetName(), sheets.getSheetPart()));
+            }
+        }
+        return sheetRefs;
+    }
+
+    private ParsedExcelData.SheetData parseXlsxSheet(SheetRef sheetRef, SharedStrings sharedStrings,
+                                                     StylesTable styles) throws Exception {
+        log.debug("Parsing sheet: {}", sheetRef.name());
+        ChatEvaluationSheetReader sheetReader = newSheetReader(sheetRef.name());
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        // DataFormatter is not thread-safe, so every sheet gets its own
+        xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+            styles, sharedStrings, sheetReader, new DataFormatter(), false));
+        try (InputStream sheetStream = sheetRef.part().getInputStream()) {
+            xmlReader.parse(new InputSource(sheetStream));
+        }
+        return sheetReader.toSheetData();
+    }
+
+    /**
+     * Legacy .xls workbooks have no per-sheet streams, so they are loaded whole and read sequentially
+     * The structure checks of {@link WorkbookStructureValidator} are applied along the way: sheet count up
+     * front, header rows as each sheet is read and the required columns once every sheet is known.
+     */
+    private List<ParsedExcelData.SheetData> parseXlsSheets(Callable<Workbook> openWorkbook, String filename)
+            throws Exception {
+        try (Workbook workbook = openWorkbook.call()) {
+            checkSheetCount(workbook.getNumberOfSheets());
+            DataFormatter formatter = new DataFormatter();
+            List<ParsedExcelData.SheetData> sheets = new ArrayList<>();
+            for (Sheet sheet : workbook) {
+                ChatEvaluationSheetReader sheetReader = newSheetReader(sheet.getSheetName());
+                for (Row row : sheet) {
+                    TreeMap<Integer, String> cells = new TreeMap<>();
+                    for (Cell cell : row) {
+                        cells.put(cell.getColumnIndex(), formatter.formatCellValue(cell));
+                    }
+                    sheetReader.acceptRow(row.getRowNum(), cells);
+                }
+                sheets.add(sheetReader.toSheetData());
+            }
+            if (sheets.stream().noneMatch(sheet -> sheet.getTaskType() == TaskType.CHAT_EVALUATION)) {
+                throw WorkbookStructureValidator.noTaskSheet(filename);
+            }
+            return sheets;
+        }
+    }
+
+    private ChatEvaluationSheetReader newSheetReader(String sheetName) {
+        return new ChatEvaluationSheetReader(sheetName, excelProperties.getMaxRowsPerSheet(),
+            excelProperties.getMaxReportedRowErrors(), objectMapper);
+    }
+
+    private void checkSheetCount(int sheetCount) {
+        if (sheetCount > excelProperties.getMaxSheets()) {
+            throw new IllegalArgumentException(String.format(
+                "Workbook has %d sheets, the maximum is %d", sheetCount, excelProperties.getMaxSheets()));
+        }
+    }
+
+    private Path createSpoolFile(String filename) throws IOException {
+        Path directory = fileProperties.getSpoolDirectory() != null
+            ? Files.createDirectories(fileProperties.getSpoolDirectory())
+            : Path.of(System.getProperty("java.io.tmpdir"));
+        String suffix = filename.toLowerCase(Locale.ROOT).endsWith(".xls") ? ".xls" : ".xlsx";
+        Path spoolFile = Files.createTempFile(directory, "upload-", suffix);
+        log.debug("Spooling upload {} to {}", filename, spoolFile);
+        return spoolFile;
+    }
+
+    private void deleteSpoolFile(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled upload: {}", spoolFile, e);
+        }
+    }
+
+    private byte[] toByteArray(DataBuffer dataBuffer) {
+        try {
+            byte[] bytes = new byte[dataBuffer.readableByteCount()];
+            dataBuffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+
+    private record SheetRef(String name, PackagePart part) {
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Row-level scheduler over the tasks claimed by this node
+ * Rows are handed out with deficit round-robin across users (weighted by app.worker.user-weights) and,
+ * within a user, across that user's tasks (weighted by task priority), so a user with one small task is
+ * served at the same rate as a user with many large ones. All state changes go through this class.
+ */
+class FairScheduler {
+
+    private final ToIntFunction<String> userWeights;
+    private final DeficitRoundRobin<UserQueue> users = new DeficitRoundRobin<>();
+    private final Map<String, UserQueue> byUser = new HashMap<>();
+
+    FairScheduler(ToIntFunction<String> userWeights) {
+        this.userWeights = userWeights;
+    }
+
+    /**
+     * Start scheduling a claimed task, rows are offered separately as they are read
+     */
+    synchronized ActiveTask add(Task task) {
+        ActiveTask active = new ActiveTask(task);
+        UserQueue queue = byUser.computeIfAbsent(task.getUserId(), userId -> {
+            UserQueue created = new UserQueue(userId);
+            users.add(created, userWeights.applyAsInt(userId));
+            return created;
+        });
+        queue.tasks.add(active, active.weight());
+        queue.members.add(active);
+        return active;
+    }
+
+    /**
+     * Stop scheduling a task, rows still in flight finish but nothing more is handed out
+     */
+    synchronized void remove(ActiveTask task) {
+        task.removed = true;
+        UserQueue queue = byUser.get(task.task.getUserId());
+        if (queue == null) {
+            return;
+        }
+        queue.tasks.remove(task);
+        queue.members.remove(task);
+        if (queue.members.isEmpty()) {
+            users.remove(queue);
+            byUser.remove(queue.userId);
+        }
+    }
+
+    /**
+     * Append rows read for a task
+     * @param exhausted Whether the task has no rows left beyond these
+     */
+    synchronized void offerRows(ActiveTask task, List<ChatEvaluationInput> rows, boolean exhausted) {
+        long now = System.nanoTime();
+        for (ChatEvaluationInput row : rows) {
+            task.buffer.addLast(new BufferedRow(row, now));
+            task.lastRowNumber = Math.max(task.lastRowNumber, row.getRowNumber());
+        }
+        task.exhausted = exhausted;
+        task.fetching = false;
+    }
+
+    /**
+     * Hand out the next row to evaluate, or null if no task has a row ready
+     */
+    synchronized RowWork next() {
+        UserQueue queue = users.next(UserQueue::hasReadyRow);
+        if (queue == null) {
+            return null;
+        }
+        ActiveTask task = queue.tasks.next(ActiveTask::hasReadyRow);
+        BufferedRow row = task.buffer.pollFirst();
+        task.inFlight++;
+        return new RowWork(task, row.input(), System.nanoTime() - row.readyAt());
+    }
+
+    /**
+     * Record a successfully evaluated row
+     * @return What the caller has to do next for the task
+     */
+    synchronized RowOutcome rowFinished(ActiveTask task, int batchSize) {
+        task.inFlight--;
+        if (task.removed) {
+            return RowOutcome.NONE;
+        }
+        task.task.setProcessedRows(task.task.getProcessedRows() + 1);
+        task.task.setUpdatedAt(LocalDateTime.now());
+        if (task.isDone()) {
+            return RowOutcome.COMPLETE;
+        }
+        return claimFetch(task, batchSize) ? RowOutcome.FETCH_ROWS : RowOutcome.NONE;
+    }
+
+    /**
+     * Mark a task for a row read, false if one is already running or not needed
+     * Rows are read again once the buffer is half empty so workers do not wait on the database
+     */
+    synchronized boolean claimFetch(ActiveTask task, int batchSize) {
+        if (task.removed || task.exhausted || task.fetching || task.buffer.size() > batchSize / 2) {
+            return false;
+        }
+        task.fetching = true;
+        return true;
+    }
+
+    /**
+     * Highest row number read so far for a task, rows are read in row number order
+     */
+    synchronized int lastRowNumber(ActiveTask task) {
+        return task.lastRowNumber;
+    }
+
+    /**
+     * Whether a task has nothing left to evaluate
+     */
+    synchronized boolean isDone(ActiveTask task) {
+        return !task.removed && task.isDone();
+    }
+
+    /**
+     * Mark a task failed and stop scheduling it, false if it was already stopped
+     */
+    synchronized boolean fail(ActiveTask task) {
+        if (task.removed) {
+            return false;
+        }
+        remove(task);
+        return true;
+    }
+
+    synchronized int activeTaskCount() {
+        return byUser.values().stream().mapToInt(queue -> queue.members.size()).sum();
+    }
+
+    /**
+     * Users with at least the given number of claimed tasks
+     */
+    synchronized Set<String> usersAtLimit(int maxTasksPerUser) {
+        return byUser.values().stream()
+            .filter(queue -> queue.members.size() >= maxTasksPerUser)
+            .map(queue -> queue.userId)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Whether the user has any claimed task
+     */
+    synchronized boolean hasTasks(String userId) {
+        return byUser.containsKey(userId);
+    }
+
+    /**
+     * Rows of a user's claimed tasks that are not evaluated yet
+     */
+    synchronized long remainingRows(String userId) {
+        UserQueue queue = byUser.get(userId);
+        if (queue == null) {
+            return 0;
+        }
+        return queue.members.stream()
+            .mapToLong(task -> Math.max(0, task.task.getRowCount() - task.task.getProcessedRows()))
+            .sum();
+    }
+
+    /**
+     * A claimed task and its buffered rows
+     */
+    static final class ActiveTask {
+
+        private final Task task;
+        private final ArrayDeque<BufferedRow> buffer = new ArrayDeque<>();
+        private int lastRowNumber;
+        private int inFlight;
+        private boolean exhausted;
+        private boolean fetching = true;
+        private boolean removed;
+
+        private ActiveTask(Task task) {
+            this.task = task;
+        }
+
+        Task task() {
+            return task;
+        }
+
+        private int weight() {
+            return task.getPriority() != null ? task.getPriority() : 1;
+        }
+
+        private boolean hasReadyRow() {
+            return !buffer.isEmpty();
+        }
+
+        private boolean isDone() {
+            return exhausted && buffer.isEmpty() && inFlight == 0;
+        }
+    }
+
+    /**
+     * A row handed out for evaluation
+     * @param waitNanos Time the row spent buffered before it was handed out
+     */
+    record RowWork(ActiveTask task, ChatEvaluationInput input, long waitNanos) {
+    }
+
+    enum RowOutcome {
+        NONE,
+        FETCH_ROWS,
+        COMPLETE
+    }
+
+    private record BufferedRow(ChatEvaluationInput input, long readyAt) {
+    }
+
+    private static final class UserQueue {
+
+        private final String userId;
+        private final DeficitRoundRobin<ActiveTask> tasks = new DeficitRoundRobin<>();
+        private final List<ActiveTask> members = new ArrayList<>();
+
+        private UserQueue(String userId) {
+            this.userId = userId;
+        }
+
+        private boolean hasReadyRow() {
+            return members.stream().anyMatch(ActiveTask::hasReadyRow);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.StorageProperties;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.PackedStrings;
+import com.example.springhttpclientdatajpademo.enums.InputStorageFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps golden citations and metadata between parsed JSON and the configured row storage format
+ * Readers go through this class so rows written in either format decode to plain lists and maps
+ */
+@Component
+@RequiredArgsConstructor
+public class InputStorageCodec {
+
+    private final StorageProperties storageProperties;
+
+    /**
+     * Set citations and metadata on an input row in the configured storage format
+     * Metadata that is not a flat object of scalar values is kept as JSON in either format
+     */
+    public ChatEvaluationInput.ChatEvaluationInputBuilder encode(ChatEvaluationInput.ChatEvaluationInputBuilder input,
+                                                                 JsonNode goldenCitations, JsonNode metadata) {
+        if (storageProperties.getInputFormat() != InputStorageFormat.COMPACT) {
+            return input.goldenCitations(goldenCitations).metadata(metadata);
+        }
+
+        input.goldenCitationsPacked(PackedStrings.of(textValues(goldenCitations)));
+        if (metadata == null) {
+            return input;
+        }
+        if (!isFlat(metadata)) {
+            return input.metadata(metadata);
+        }
+        List<String> entries = new ArrayList<>(metadata.size() * 2);
+        metadata.fields().forEachRemaining(field -> {
+            entries.add(field.getKey());
+            entries.add(field.getValue().asText());
+        });
+        return input.metadataPacked(PackedStrings.of(entries));
+    }
+
+    /**
+     * Golden citation URLs of an input row, whichever format it was stored in
+     */
+    public List<String> citations(ChatEvaluationInput input) {
+        if (input.getGoldenCitationsPacked() != null) {
+            return input.getGoldenCitationsPacked().values();
+        }
+        return textValues(input.getGoldenCitations());
+    }
+
+    /**
+     * Metadata of an input row as a flat map, whichever format it was stored in
+     */
+    public Map<String, String> metadata(ChatEvaluationInput input) {
+        if (input.getMetadataPacked() != null) {
+            List<String> entries = input.getMetadataPacked().values();
+            Map<String, String> metadata = new LinkedHashMap<>();
+            for (int i = 0; i + 1 < entries.size(); i += 2) {
+                metadata.put(entries.get(i), entries.get(i + 1));
+            }
+            return metadata;
+        }
+        if (input.getMetadata() == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> metadata = new LinkedHashMap<>();
+        input.getMetadata().fields().forEachRemaining(field -> metadata.put(field.getKey(),
+            field.getValue().isValueNode() ? field.getValue().asText() : field.getValue().toString()));
+        return metadata;
+    }
+
+    private static List<String> textValues(JsonNode array) {
+        if (array == null) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>(array.size());
+        array.elements().forEachRemaining(element -> values.add(element.asText()));
+        return values;
+    }
+
+    private static boolean isFlat(JsonNode metadata) {
+        if (!metadata.isObject()) {
+            return false;
+        }
+        for (Iterator<JsonNode> values = metadata.elements(); values.hasNext(); ) {
+            if (!values.next().isValueNode()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
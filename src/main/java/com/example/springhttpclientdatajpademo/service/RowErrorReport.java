@@ -0,0 +1,47 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.dto.ParsedExcelData;
+import com.example.springhttpclientdatajpademo.dto.RowValidationError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upload-wide report of rejected rows, merged from the per-sheet reports
+ * Keeps at most maxErrors entries while still counting every reject
+ */
+class RowErrorReport {
+
+    private final int maxErrors;
+    private final List<RowValidationError> errors = new ArrayList<>();
+    private int rejectedRowCount;
+
+    RowErrorReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    synchronized void add(ParsedExcelData.SheetData sheet) {
+        if (sheet.getRejectedRowCount() == null || sheet.getRejectedRowCount() == 0) {
+            return;
+        }
+        rejectedRowCount += sheet.getRejectedRowCount();
+        for (RowValidationError error : sheet.getRejectedRows()) {
+            if (errors.size() >= maxErrors) {
+                break;
+            }
+            errors.add(error);
+        }
+    }
+
+    synchronized boolean hasErrors() {
+        return rejectedRowCount > 0;
+    }
+
+    synchronized List<RowValidationError> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    synchronized int getRejectedRowCount() {
+        return rejectedRowCount;
+    }
+}
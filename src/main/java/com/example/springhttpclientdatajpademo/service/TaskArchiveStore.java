@@ -0,0 +1,133 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ArchiveProperties;
+import com.example.springhttpclientdatajpademo.dto.TaskResultRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive files of completed tasks, one gzip-compressed NDJSON file per task
+ * Each line is a {@link TaskResultRow} in row order. Files are written to a temp file first and moved into
+ * place when complete, so a file that exists is always whole. All file access runs on the bounded elastic
+ * scheduler.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskArchiveStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ArchiveProperties archiveProperties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Location of a task's archive file, spread over subdirectories by the first characters of the task id
+     */
+    public Path path(UUID taskId) {
+        String name = taskId.toString();
+        return archiveProperties.getDirectory().resolve(name.substring(0, 2)).resolve(name + ".ndjson.gz");
+    }
+
+    /**
+     * Write a task's rows to its archive file
+     * @return Number of rows written
+     */
+    public Mono<Long> write(UUID taskId, Flux<TaskResultRow> rows) {
+        Path target = path(taskId);
+        return Mono.fromCallable(() -> {
+                Files.createDirectories(target.getParent());
+                return Files.createTempFile(target.getParent(), taskId.toString(), ".tmp");
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(temp -> Mono.using(
+                    () -> new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(temp), BUFFER_SIZE), StandardCharsets.UTF_8)),
+                    writer -> rows
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(row -> writeLine(writer, row))
+                        .count(),
+                    TaskArchiveStore::close)
+                .flatMap(count -> Mono.fromCallable(() -> {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    return count;
+                }))
+                .doOnError(error -> deleteQuietly(temp)));
+    }
+
+    /**
+     * Read a task's rows back from its archive file
+     */
+    public Flux<TaskResultRow> read(UUID taskId) {
+        Path file = path(taskId);
+        return Flux.using(
+                () -> new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8)),
+                reader -> Flux.fromStream(reader.lines()).map(this::parseLine),
+                TaskArchiveStore::close)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Remove a task's archive file if there is one
+     */
+    public Mono<Void> delete(UUID taskId) {
+        return Mono.fromCallable(() -> Files.deleteIfExists(path(taskId)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    private void writeLine(BufferedWriter writer, TaskResultRow row) {
+        try {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TaskResultRow parseLine(String line) {
+        try {
+            return objectMapper.readValue(line, TaskResultRow.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete partial archive file: {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ArchiveProperties;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Background archival of completed tasks
+ * Rows of tasks completed longer than app.archive.retention ago are streamed into a {@link TaskArchiveStore}
+ * file, then the task is marked archived, which switches its reads to the file, and finally its rows are
+ * removed in chunks the same way as those of deleted tasks. The tasks row and the task's statistics stay,
+ * so the task keeps showing up in the API as before. Tasks are archived one at a time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskArchiver {
+
+    private static final int TASKS_PER_SCAN = 10;
+
+    private final TaskRepository taskRepository;
+    private final TaskResultReader resultReader;
+    private final TaskArchiveStore archiveStore;
+    private final DeletedTaskReclaimer deletedTaskReclaimer;
+    private final ArchiveProperties archiveProperties;
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!archiveProperties.isEnabled() || subscription != null) {
+            return;
+        }
+        subscription = Flux.interval(Duration.ZERO, archiveProperties.getPollInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> removeLeftoverRows()
+                .then(archiveCompleted())
+                .onErrorResume(error -> {
+                    log.error("Failed to archive completed tasks", error);
+                    return Mono.empty();
+                }), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Archive completed tasks past their retention until none are left
+     */
+    Mono<Void> archiveCompleted() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveProperties.getRetention());
+        return taskRepository.findArchivable(cutoff, TASKS_PER_SCAN)
+            .concatMap(this::archive)
+            .count()
+            .flatMap(archived -> archived < TASKS_PER_SCAN ? Mono.<Void>empty() : archiveCompleted());
+    }
+
+    /**
+     * Finish archivals that stopped after the file was written but before all rows were removed
+     */
+    Mono<Void> removeLeftoverRows() {
+        return taskRepository.findArchivedWithRows(TASKS_PER_SCAN)
+            .concatMap(task -> deletedTaskReclaimer.deleteRows(task.getId()))
+            .then();
+    }
+
+    private Mono<Task> archive(Task task) {
+        UUID taskId = task.getId();
+        long started = System.currentTimeMillis();
+        return archiveStore.write(taskId, resultReader.readFromDatabase(taskId))
+            .flatMap(rows -> taskRepository.markArchived(taskId, LocalDateTime.now())
+                .flatMap(updated -> updated > 0
+                    ? deletedTaskReclaimer.deleteRows(taskId).thenReturn(rows)
+                    // Deleted in the meantime, the reclaimer removes the rows
+                    : archiveStore.delete(taskId).then(Mono.<Long>empty())))
+            .doOnNext(rows -> log.info("Archived task {} ({} rows) in {} ms",
+                taskId, rows, System.currentTimeMillis() - started))
+            .thenReturn(task);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cancellation signals of the tasks processed on this node
+ * The worker registers every task it claims and ties its outstanding evaluation calls to the task's signal,
+ * so cancelling disposes them right away instead of waiting for the chat platform to answer.
+ * Tasks processed on other nodes are cancelled through the tasks row, see {@link ChatEvaluationWorker}.
+ */
+@Component
+public class TaskCancellationRegistry {
+
+    private final Map<UUID, Sinks.One<Boolean>> running = new ConcurrentHashMap<>();
+
+    /**
+     * Start tracking a claimed task
+     * @return Signal emitting once the task is cancelled
+     */
+    public Mono<Boolean> register(UUID taskId) {
+        return running.computeIfAbsent(taskId, id -> Sinks.one()).asMono();
+    }
+
+    /**
+     * Stop tracking a task that is no longer processed on this node
+     */
+    public void unregister(UUID taskId) {
+        running.remove(taskId);
+    }
+
+    /**
+     * Signal emitting once the task is cancelled
+     * A task that is no longer tracked counts as cancelled, so stray work for it stops right away.
+     */
+    public Mono<Boolean> cancellation(UUID taskId) {
+        Sinks.One<Boolean> signal = running.get(taskId);
+        return signal != null ? signal.asMono() : Mono.just(Boolean.TRUE);
+    }
+
+    /**
+     * Cancel a task processed on this node
+     * @return Whether the task was running here and had not been cancelled yet
+     */
+    public synchronized boolean cancel(UUID taskId) {
+        Sinks.One<Boolean> signal = running.get(taskId);
+        // Serialized by the monitor, so the emission only fails when the task was already cancelled
+        return signal != null && signal.tryEmitValue(Boolean.TRUE).isSuccess();
+    }
+
+    /**
+     * Tasks currently processed on this node
+     */
+    public Set<UUID> runningTasks() {
+        return Set.copyOf(running.keySet());
+    }
+}
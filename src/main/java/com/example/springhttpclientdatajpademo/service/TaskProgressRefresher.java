@@ -0,0 +1,69 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Follows tasks processed on other nodes for the progress streams open on this node
+ * Every app.worker.progress-refresh-interval the rows of all watched tasks are read in one query, however many
+ * streams watch them, and broadcast through {@link TaskProgressService}. Off by default: on a single node every
+ * change is broadcast in-process and watched tasks cause no reads of the tasks table at all.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskProgressRefresher {
+
+    private static final int TASKS_PER_READ = 500;
+
+    private final TaskRepository taskRepository;
+    private final TaskProgressService taskProgressService;
+    private final WorkerProperties workerProperties;
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Duration interval = workerProperties.getProgressRefreshInterval();
+        if (interval.isZero() || subscription != null) {
+            return;
+        }
+        subscription = Flux.interval(interval)
+            .onBackpressureDrop()
+            .concatMap(tick -> refresh()
+                .onErrorResume(error -> {
+                    log.warn("Failed to refresh task progress", error);
+                    return Mono.empty();
+                }), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Read the watched tasks and broadcast their current state
+     */
+    Mono<Void> refresh() {
+        return Flux.fromIterable(taskProgressService.watchedTasks())
+            .buffer(TASKS_PER_READ)
+            .concatMap(taskRepository::findAllById)
+            .doOnNext(taskProgressService::publishSnapshot)
+            .then();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.dto.TaskProgressEvent;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process broadcast of task status and progress changes
+ * Keeps the latest snapshot of every active task so late subscribers get the current state
+ * without reading the tasks table again, then follow live updates until the task finishes.
+ * Changes made on this node are broadcast as they happen. Tasks processed by another node are followed
+ * through snapshots that {@link TaskProgressRefresher} reads for every watched task, if enabled.
+ */
+@Slf4j
+@Service
+public class TaskProgressService {
+
+    private static final int SUBSCRIBER_BUFFER_SIZE = 256;
+
+    private final Sinks.Many<TaskProgressEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final Map<UUID, TaskProgressEvent> latest = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> watchers = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Publish the current state of a task to all subscribers
+     * @param task Task as just written to the database
+     */
+    public synchronized void publish(Task task) {
+        TaskProgressEvent event = TaskProgressEvent.from(task, versions.incrementAndGet());
+        if (event.getStatus().isTerminal()) {
+            latest.remove(task.getId());
+        } else {
+            latest.put(task.getId(), event);
+        }
+        // Serialized by the monitor, so the only failure left is "no subscribers"
+        sink.tryEmitNext(event);
+    }
+
+    /**
+     * Broadcast the state of a task as read from the database
+     * Streams only pass it on when it was written after what they already delivered.
+     * @param task Task row read by {@link TaskProgressRefresher}
+     */
+    public synchronized void publishSnapshot(Task task) {
+        TaskProgressEvent event = TaskProgressEvent.from(task, 0);
+        if (event.getStatus().isTerminal()) {
+            // Finished on another node, nothing will be published here to clear the cached state
+            latest.remove(task.getId());
+        } else {
+            latest.computeIfPresent(task.getId(), (id, cached) -> isNewer(event, cached) ? event : cached);
+        }
+        sink.tryEmitNext(event);
+    }
+
+    /**
+     * Tasks that have at least one open progress stream on this node
+     */
+    public Set<UUID> watchedTasks() {
+        return Set.copyOf(watchers.keySet());
+    }
+
+    /**
+     * Stream progress of a single task, starting with its current state
+     * Completes once the task reaches a terminal status
+     * @param task Task as loaded when the subscription was made, used when no newer state is cached
+     */
+    public Flux<TaskProgressEvent> taskEvents(Task task) {
+        return Flux.defer(() -> {
+                watch(task.getId());
+                // Subscribe to live updates before reading the snapshot so nothing falls in between
+                Flux<TaskProgressEvent> live = liveEvents()
+                    .filter(event -> event.getTaskId().equals(task.getId()));
+                return Flux.merge(live, Flux.just(currentState(task)))
+                    .doFinally(signal -> unwatch(task.getId()));
+            })
+            .transform(TaskProgressService::newestPerTask)
+            .takeUntil(event -> event.getStatus().isTerminal());
+    }
+
+    /**
+     * Stream progress of every task in an upload batch, starting with their current states
+     * Completes once all of them reach a terminal status
+     * @param uploadBatchId Upload batch identifier
+     * @param tasks Tasks of the batch as loaded when the subscription was made
+     */
+    public Flux<TaskProgressEvent> batchEvents(UUID uploadBatchId, List<Task> tasks) {
+        return Flux.defer(() -> {
+            Set<UUID> active = ConcurrentHashMap.newKeySet();
+            tasks.forEach(task -> {
+                active.add(task.getId());
+                watch(task.getId());
+            });
+            Flux<TaskProgressEvent> live = liveEvents()
+                .filter(event -> active.contains(event.getTaskId()));
+            return Flux.merge(live, Flux.fromIterable(tasks).map(this::currentState))
+                .transform(TaskProgressService::newestPerTask)
+                .doOnNext(event -> {
+                    if (event.getStatus().isTerminal() && active.remove(event.getTaskId())) {
+                        unwatch(event.getTaskId());
+                    }
+                })
+                .takeUntil(event -> active.isEmpty())
+                .doFinally(signal -> active.forEach(this::unwatch));
+        });
+    }
+
+    private void watch(UUID taskId) {
+        watchers.merge(taskId, 1, Integer::sum);
+    }
+
+    private void unwatch(UUID taskId) {
+        watchers.computeIfPresent(taskId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Flux<TaskProgressEvent> liveEvents() {
+        // Events are full snapshots, so a slow subscriber can safely skip the oldest ones
+        return sink.asFlux()
+            .onBackpressureBuffer(SUBSCRIBER_BUFFER_SIZE, dropped -> { }, BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    private TaskProgressEvent currentState(Task task) {
+        return latest.getOrDefault(task.getId(), TaskProgressEvent.from(task, 0));
+    }
+
+    private static boolean isNewer(TaskProgressEvent event, TaskProgressEvent than) {
+        return event.getUpdatedAt() != null
+            && (than.getUpdatedAt() == null || event.getUpdatedAt().isAfter(than.getUpdatedAt()));
+    }
+
+    /**
+     * Drop events older than one already delivered for the same task
+     * Events published on this node are ordered by version; snapshots read from the database (version 0)
+     * only pass when they were written after everything delivered so far.
+     */
+    private static Flux<TaskProgressEvent> newestPerTask(Flux<TaskProgressEvent> events) {
+        return Flux.defer(() -> {
+            Map<UUID, Delivered> delivered = new ConcurrentHashMap<>();
+            return events.filter(event -> {
+                Delivered previous = delivered.get(event.getTaskId());
+                if (previous != null && !previous.isOlderThan(event)) {
+                    return false;
+                }
+                delivered.put(event.getTaskId(), previous == null ? new Delivered(event) : previous.and(event));
+                return true;
+            });
+        });
+    }
+
+    private record Delivered(long version, LocalDateTime updatedAt) {
+
+        Delivered(TaskProgressEvent event) {
+            this(event.getVersion(), event.getUpdatedAt());
+        }
+
+        boolean isOlderThan(TaskProgressEvent event) {
+            if (event.getVersion() > 0) {
+                return event.getVersion() > version;
+            }
+            return event.getUpdatedAt() != null && (updatedAt == null || event.getUpdatedAt().isAfter(updatedAt));
+        }
+
+        Delivered and(TaskProgressEvent event) {
+            LocalDateTime newest = updatedAt == null || (event.getUpdatedAt() != null && event.getUpdatedAt().isAfter(updatedAt))
+                ? event.getUpdatedAt() : updatedAt;
+            return new Delivered(Math.max(version, event.getVersion()), newest);
+        }
+    }
+}
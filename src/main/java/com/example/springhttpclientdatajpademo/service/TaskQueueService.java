@@ -0,0 +1,151 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.entity.TaskOutboxEvent;
+import com.example.springhttpclientdatajpademo.repository.TaskOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task-queued notifications for the background processor
+ * Tasks created on this node are announced on an in-process bus right after their transaction
+ * commits; an outbox row written inside that transaction lets the other nodes find them with a
+ * cheap primary-key range read instead of scanning the tasks table. The outbox is only read when
+ * app.worker.outbox-poll-interval is set, a single node needs nothing but the in-process bus.
+ */
+@Slf4j
+@Service
+public class TaskQueueService {
+
+    private final TaskOutboxRepository outboxRepository;
+    private final WorkerProperties workerProperties;
+    private final UUID nodeId = UUID.randomUUID();
+    private final Sinks.Many<UUID> queued = Sinks.many().multicast().directBestEffort();
+
+    public TaskQueueService(TaskOutboxRepository outboxRepository, WorkerProperties workerProperties) {
+        this.outboxRepository = outboxRepository;
+        this.workerProperties = workerProperties;
+    }
+
+    /**
+     * Write the outbox row for a newly queued task, to be called inside the transaction creating it
+     */
+    public Mono<Task> recordQueued(Task task) {
+        return outboxRepository.save(TaskOutboxEvent.builder()
+                .taskId(task.getId())
+                .eventType(TaskOutboxEvent.TASK_QUEUED)
+                .originNode(nodeId)
+                .createdAt(LocalDateTime.now())
+                .build())
+            .thenReturn(task);
+    }
+
+    /**
+     * Announce a queued task to the workers of this node, to be called once its transaction has committed
+     */
+    public synchronized void publishQueued(Task task) {
+        // Serialized by the monitor, so the only failure left is "no subscribers"
+        queued.tryEmitNext(task.getId());
+    }
+
+    /**
+     * Ids of tasks queued on this node and, through the outbox, on any other node
+     */
+    public Flux<UUID> queuedTasks() {
+        Duration interval = workerProperties.getOutboxPollInterval();
+        if (interval == null || interval.isZero()) {
+            return queued.asFlux();
+        }
+        return Flux.merge(queued.asFlux(), outboxEvents(interval));
+    }
+
+    /**
+     * Drop outbox rows every node has had time to see
+     */
+    public Mono<Integer> purgeOutbox() {
+        return outboxRepository.deleteCreatedBefore(LocalDateTime.now().minus(workerProperties.getOutboxRetention()));
+    }
+
+    private Flux<UUID> outboxEvents(Duration interval) {
+        // Only rows written after startup matter, older work is found by the fallback poll
+        return outboxRepository.findMaxId()
+            .flatMapMany(startId -> {
+                OutboxCursor cursor = new OutboxCursor(startId);
+                return Flux.interval(interval)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> cursor.poll()
+                        .onErrorResume(error -> {
+                            log.warn("Failed to read task outbox", error);
+                            return Flux.empty();
+                        }));
+            })
+            .filter(event -> !nodeId.equals(event.getOriginNode()))
+            .map(TaskOutboxEvent::getTaskId);
+    }
+
+    /**
+     * Read position in the outbox
+     * Ids are handed out when a row is inserted but become visible when its transaction commits, so a row can
+     * show up after higher ids were already read. Ids skipped over are remembered as gaps and looked up again
+     * on the following polls until they appear or the gap timeout passes (rolled back, or left to the
+     * fallback poll). Every row is emitted once: either past the read position or when its gap is filled.
+     */
+    private class OutboxCursor {
+
+        private long lastSeen;
+        private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+        OutboxCursor(long startId) {
+            this.lastSeen = startId;
+        }
+
+        // Polls are serialized by concatMap
+        Flux<TaskOutboxEvent> poll() {
+            return Flux.concat(Flux.defer(this::readGaps), Flux.defer(this::readNew))
+                .doOnComplete(this::expireGaps);
+        }
+
+        private Flux<TaskOutboxEvent> readGaps() {
+            if (gaps.isEmpty()) {
+                return Flux.empty();
+            }
+            return outboxRepository.findAllById(List.copyOf(gaps.keySet()))
+                .doOnNext(event -> gaps.remove(event.getId()));
+        }
+
+        private Flux<TaskOutboxEvent> readNew() {
+            return outboxRepository.findAfter(lastSeen, workerProperties.getOutboxBatchSize())
+                .doOnNext(event -> {
+                    long now = now();
+                    // Bounded, a large jump in ids (e.g. after a database restart) is not worth chasing
+                    for (long id = lastSeen + 1; id < event.getId() && gaps.size() < workerProperties.getOutboxBatchSize(); id++) {
+                        gaps.put(id, now);
+                    }
+                    lastSeen = Math.max(lastSeen, event.getId());
+                });
+        }
+
+        private void expireGaps() {
+            long expired = now() - workerProperties.getOutboxGapTimeout().toMillis();
+            gaps.values().removeIf(firstMissed -> firstMissed < expired);
+        }
+
+        // Clock of the scheduler driving the polls
+        private long now() {
+            return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+        }
+    }
+}
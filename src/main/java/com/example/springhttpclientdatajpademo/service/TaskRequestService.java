@@ -1,12 +1,21 @@
 package com.example.springhttpclientdatajpademo.service;
 
+import com.example.springhttpclientdatajpademo.dto.CreateTaskBatchResponse;
 import com.example.springhttpclientdatajpademo.dto.CreateTaskResponse;
+import com.example.springhttpclientdatajpademo.dto.EvaluationStats;
+import com.example.springhttpclientdatajpademo.dto.TaskProgressEvent;
+import com.example.springhttpclientdatajpademo.dto.TaskResultRow;
+import com.example.springhttpclientdatajpademo.dto.UpdateTaskRequest;
+import com.example.springhttpclientdatajpademo.entity.Task;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.UUID;
+
 /**
  * Service for handling task-related HTTP requests
  * Orchestrates authentication, validation, and business logic
@@ -23,27 +32,175 @@ public class TaskRequestService {
      * Handle task creation request with authentication and orchestration
      * 
      * @param filePartMono Uploaded file part
+     * @param priority Optional task priority (1-10)
      * @param authHeader Authorization header containing JWT token
      * @return Task creation response
      */
     public Mono<CreateTaskResponse> handleTaskCreationRequest(
             Mono<FilePart> filePartMono, 
+            Integer priority,
             String authHeader) {
         
         log.info("Handling task creation request");
         
         // Extract user ID from JWT token using dedicated service
-        String userId = jwtService.extractUserIdFromToken(authHeader);
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMap(userId -> filePartMono
+                .doOnNext(filePart -> {
+                    log.info("Processing file: {} for user: {}", filePart.filename(), userId);
+                    validateFileUpload(filePart);
+                    validatePriority(priority);
+                })
+                .flatMap(filePart -> taskService.createTasks(filePart, userId, priority))
+                .doOnSuccess(response -> log.info("Task creation completed for user: {} with batch: {}", 
+                    userId, response.getUploadBatchId()))
+                .doOnError(error -> log.error("Task creation failed for user: {}", userId, error)));
+    }
+
+    /**
+     * Handle a multi-file task creation request
+     * Files are validated one by one while they are processed, so a bad file only fails its own entry
+     * 
+     * @param fileParts Uploaded file parts
+     * @param priority Optional task priority (1-10), applied to the tasks of every file
+     * @param authHeader Authorization header containing JWT token
+     * @return Outcome of every file under one upload batch
+     */
+    public Mono<CreateTaskBatchResponse> handleTaskBatchCreationRequest(
+            Flux<FilePart> fileParts,
+            Integer priority,
+            String authHeader) {
         
-        return filePartMono
-            .doOnNext(filePart -> {
-                log.info("Processing file: {} for user: {}", filePart.filename(), userId);
-                validateFileUpload(filePart);
-            })
-            .flatMap(filePart -> taskService.createTasks(filePart, userId))
-            .doOnSuccess(response -> log.info("Task creation completed for user: {} with batch: {}", 
-                userId, response.getUploadBatchId()))
-            .doOnError(error -> log.error("Task creation failed for user: {}", userId, error));
+        log.info("Handling multi-file task creation request");
+        
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMap(userId -> {
+                validatePriority(priority);
+                return taskService.createTaskBatch(fileParts, userId, priority)
+                    .doOnSuccess(response -> log.info("Multi-file task creation completed for user: {} with batch: {}, {} of {} files failed",
+                        userId, response.getUploadBatchId(), response.getFailedFiles(), response.getTotalFiles()))
+                    .doOnError(error -> log.error("Multi-file task creation failed for user: {}", userId, error));
+            });
+    }
+
+    /**
+     * Handle a task update request, cancelling is the only supported action
+     * 
+     * @param taskId Task identifier
+     * @param request Requested action
+     * @param authHeader Authorization header containing JWT token
+     * @return Updated task
+     */
+    public Mono<Task> handleTaskUpdateRequest(UUID taskId, UpdateTaskRequest request, String authHeader) {
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMap(userId -> {
+                if (request == null || !UpdateTaskRequest.ACTION_CANCEL.equals(request.getAction())) {
+                    return Mono.error(new IllegalArgumentException("Unsupported action, expected 'cancel'"));
+                }
+                log.info("Cancelling task: {} for user: {}", taskId, userId);
+                return taskService.cancelTask(taskId, userId);
+            });
+    }
+
+    /**
+     * Handle a task deletion request
+     * 
+     * @param taskId Task identifier
+     * @param authHeader Authorization header containing JWT token
+     * @return Completion once the task is marked deleted
+     */
+    public Mono<Void> handleTaskDeletionRequest(UUID taskId, String authHeader) {
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMap(userId -> {
+                log.info("Deleting task: {} for user: {}", taskId, userId);
+                return taskService.deleteTask(taskId, userId);
+            });
+    }
+
+    /**
+     * Handle a progress stream request for a single task
+     * 
+     * @param taskId Task identifier
+     * @param authHeader Authorization header containing JWT token
+     * @return Progress events until the task finishes
+     */
+    public Flux<TaskProgressEvent> handleTaskEventsRequest(UUID taskId, String authHeader) {
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMapMany(userId -> {
+                log.info("Streaming progress of task: {} for user: {}", taskId, userId);
+                return taskService.watchTask(taskId, userId);
+            });
+    }
+
+    /**
+     * Handle a progress stream request for an upload batch
+     * 
+     * @param uploadBatchId Upload batch identifier
+     * @param authHeader Authorization header containing JWT token
+     * @return Progress events until every task of the batch finishes
+     */
+    public Flux<TaskProgressEvent> handleBatchEventsRequest(UUID uploadBatchId, String authHeader) {
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMapMany(userId -> {
+                log.info("Streaming progress of upload batch: {} for user: {}", uploadBatchId, userId);
+                return taskService.watchBatch(uploadBatchId, userId);
+            });
+    }
+
+    /**
+     * Handle a results request for a single task
+     * 
+     * @param taskId Task identifier
+     * @param authHeader Authorization header containing JWT token
+     * @return Rows of the task with their results, in row order
+     */
+    public Flux<TaskResultRow> handleTaskResultsRequest(UUID taskId, String authHeader) {
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMapMany(userId -> {
+                log.info("Exporting results of task: {} for user: {}", taskId, userId);
+                return taskService.getTaskResults(taskId, userId);
+            });
+    }
+
+    /**
+     * Handle a statistics request for a single task
+     * 
+     * @param taskId Task identifier
+     * @param authHeader Authorization header containing JWT token
+     * @return Similarity statistics of the task's results so far
+     */
+    public Mono<EvaluationStats> handleTaskStatsRequest(UUID taskId, String authHeader) {
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMap(userId -> {
+                log.info("Getting statistics of task: {} for user: {}", taskId, userId);
+                return taskService.getTaskStats(taskId, userId);
+            });
+    }
+
+    /**
+     * Handle a statistics request for an upload batch
+     * 
+     * @param uploadBatchId Upload batch identifier
+     * @param authHeader Authorization header containing JWT token
+     * @return Similarity statistics of the results of every task in the batch so far
+     */
+    public Mono<EvaluationStats> handleBatchStatsRequest(UUID uploadBatchId, String authHeader) {
+        return Mono.fromCallable(() -> jwtService.extractUserIdFromToken(authHeader))
+            .flatMap(userId -> {
+                log.info("Getting statistics of upload batch: {} for user: {}", uploadBatchId, userId);
+                return taskService.getBatchStats(uploadBatchId, userId);
+            });
+    }
+
+    /**
+     * Validate the optional task priority
+     * 
+     * @throws IllegalArgumentException if the priority is out of range
+     */
+    private void validatePriority(Integer priority) {
+        if (priority != null && (priority < 1 || priority > 10)) {
+            throw new IllegalArgumentException("Priority must be between 1 and 10");
+        }
     }
 
     /**
@@ -0,0 +1,88 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ArchiveProperties;
+import com.example.springhttpclientdatajpademo.dto.TaskResultRow;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationInputRepository;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationOutputRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads the rows and results of a task, from the database or, once the task is archived, from its archive file
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskResultReader {
+
+    private final ChatEvaluationInputRepository inputRepository;
+    private final ChatEvaluationOutputRepository outputRepository;
+    private final InputStorageCodec inputStorageCodec;
+    private final TaskArchiveStore archiveStore;
+    private final ArchiveProperties archiveProperties;
+
+    /**
+     * Rows of a task with their results in row order
+     */
+    public Flux<TaskResultRow> read(Task task) {
+        return task.getArchivedAt() != null
+            ? archiveStore.read(task.getId())
+            : readFromDatabase(task.getId());
+    }
+
+    /**
+     * Rows of a task with their results from the database, one page of app.archive.page-size rows at a time
+     */
+    public Flux<TaskResultRow> readFromDatabase(UUID taskId) {
+        return readPages(taskId, 0);
+    }
+
+    private Flux<TaskResultRow> readPages(UUID taskId, int afterRowNumber) {
+        int pageSize = archiveProperties.getPageSize();
+        return inputRepository.findPage(taskId, afterRowNumber, pageSize)
+            .collectList()
+            .flatMapMany(inputs -> {
+                if (inputs.isEmpty()) {
+                    return Flux.empty();
+                }
+                List<Long> inputIds = inputs.stream().map(ChatEvaluationInput::getId).toList();
+                Flux<TaskResultRow> page = outputRepository.findByInputIds(inputIds)
+                    .collectMap(ChatEvaluationOutput::getInputId)
+                    .flatMapMany(outputs -> Flux.fromIterable(inputs)
+                        .map(input -> toRow(input, outputs)));
+                if (inputs.size() < pageSize) {
+                    return page;
+                }
+                int lastRowNumber = inputs.get(inputs.size() - 1).getRowNumber();
+                return page.concatWith(Flux.defer(() -> readPages(taskId, lastRowNumber)));
+            });
+    }
+
+    private TaskResultRow toRow(ChatEvaluationInput input, Map<Long, ChatEvaluationOutput> outputs) {
+        TaskResultRow.TaskResultRowBuilder row = TaskResultRow.builder()
+            .rowNumber(input.getRowNumber())
+            .question(input.getQuestion())
+            .goldenAnswer(input.getGoldenAnswer())
+            .goldenCitations(inputStorageCodec.citations(input))
+            .metadata(inputStorageCodec.metadata(input));
+        ChatEvaluationOutput output = outputs.get(input.getId());
+        if (output != null) {
+            row.apiAnswer(output.getApiAnswer())
+                .apiCitations(output.getApiCitations())
+                .answerSimilarity(output.getAnswerSimilarity())
+                .citationSimilarity(output.getCitationSimilarity())
+                .processingTimeMs(output.getProcessingTimeMs())
+                .apiResponseMetadata(output.getApiResponseMetadata())
+                .errorMessage(output.getErrorMessage())
+                .evaluatedAt(output.getCreatedAt());
+        }
+        return row.build();
+    }
+}
@@ -1,96 +1,171 @@
 package com.example.springhttpclientdatajpademo.service;
 
+import com.example.springhttpclientdatajpademo.config.ExcelProperties;
+import com.example.springhttpclientdatajpademo.dto.CreateTaskBatchResponse;
 import com.example.springhttpclientdatajpademo.dto.CreateTaskResponse;
+import com.example.springhttpclientdatajpademo.dto.EvaluationStats;
 import com.example.springhttpclientdatajpademo.dto.ParsedExcelData;
+import com.example.springhttpclientdatajpademo.dto.TaskProgressEvent;
+import com.example.springhttpclientdatajpademo.dto.TaskResultRow;
 import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
 import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.RowValidationMode;
 import com.example.springhttpclientdatajpademo.enums.TaskStatus;
 import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.example.springhttpclientdatajpademo.exception.InvalidTaskStatusException;
+import com.example.springhttpclientdatajpademo.exception.RowValidationException;
 import com.example.springhttpclientdatajpademo.repository.ChatEvaluationInputRepository;
 import com.example.springhttpclientdatajpademo.repository.TaskRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
-import java.util.stream.IntStream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TaskService {
 
+    /**
+     * Priority of tasks created without one, priorities range from 1 to 10
+     */
+    public static final int DEFAULT_PRIORITY = 5;
+
     private final TaskRepository taskRepository;
     private final ChatEvaluationInputRepository inputRepository;
     private final ExcelParsingService excelParsingService;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final TransactionalOperator transactionalOperator;
+    private final ExcelProperties excelProperties;
+    private final InputStorageCodec inputStorageCodec;
+    private final TaskProgressService taskProgressService;
+    private final TaskQueueService taskQueueService;
+    private final TaskCancellationRegistry cancellationRegistry;
+    private final DeletedTaskReclaimer deletedTaskReclaimer;
+    private final EvaluationStatsService evaluationStatsService;
+    private final TaskResultReader taskResultReader;
 
     /**
      * Create tasks from uploaded Excel file
+     * Sheets are persisted as soon as they are parsed. In skip-invalid-rows mode, the default, each one commits
+     * in its own transaction, so with app.excel.parallel-sheets enabled a multi-sheet upload takes roughly as long
+     * as its largest sheet, and if a later sheet fails the tasks of the sheets already persisted are withdrawn
+     * again. In reject-file mode the whole file is one transaction that an invalid row rolls back; only parsing
+     * runs in parallel there, the sheets are saved one at a time and an upload takes as long as all their
+     * inserts together.
      * @param filePart Uploaded file
      * @param userId User identifier from JWT
+     * @param priority Relative share of evaluation throughput among the user's tasks, null for the default
      * @return Task creation response
      */
-    @Transactional
-    public Mono<CreateTaskResponse> createTasks(FilePart filePart, String userId) {
+    public Mono<CreateTaskResponse> createTasks(FilePart filePart, String userId, Integer priority) {
+        return createTasks(filePart, userId, priority, UUID.randomUUID());
+    }
+
+    /**
+     * Create tasks from several uploaded Excel files under one upload batch
+     * Up to app.excel.file-parallelism files are parsed and persisted at the same time, each exactly as a
+     * single-file upload would be. A file that fails is reported in its entry of the response and does not
+     * affect the others, tasks of files that were already persisted are kept (a failed file's own tasks are not).
+     * @param fileParts Uploaded files
+     * @param userId User identifier from JWT
+     * @param priority Relative share of evaluation throughput among the user's tasks, null for the default
+     * @return Outcome of every file, in upload order
+     */
+    public Mono<CreateTaskBatchResponse> createTaskBatch(Flux<FilePart> fileParts, String userId, Integer priority) {
+        UUID uploadBatchId = UUID.randomUUID();
+        log.info("Creating tasks for user: {} from multi-file upload batch: {}", userId, uploadBatchId);
+        
+        return fileParts
+            .flatMapSequential(filePart -> createTasks(filePart, userId, priority, uploadBatchId)
+                .map(response -> fileCreated(filePart.filename(), response))
+                .onErrorResume(error -> Mono.just(fileFailed(filePart.filename(), error))),
+                excelProperties.getFileParallelism())
+            .collectList()
+            .flatMap(files -> files.isEmpty()
+                ? Mono.error(new IllegalArgumentException("At least one file is required"))
+                : Mono.just(CreateTaskBatchResponse.builder()
+                    .uploadBatchId(uploadBatchId)
+                    .files(files)
+                    .totalFiles(files.size())
+                    .failedFiles((int) files.stream().filter(CreateTaskBatchResponse.FileResult::isFailed).count())
+                    .totalTasks(files.stream().mapToInt(file -> file.isFailed() ? 0 : file.getTotalTasks()).sum())
+                    .build()))
+            .doOnSuccess(response -> log.info("Created {} tasks from {} of {} files for upload batch: {}",
+                response.getTotalTasks(), response.getTotalFiles() - response.getFailedFiles(),
+                response.getTotalFiles(), uploadBatchId));
+    }
+
+    private Mono<CreateTaskResponse> createTasks(FilePart filePart, String userId, Integer priority,
+                                                 UUID uploadBatchId) {
         log.info("Creating tasks for user: {} from file: {}", userId, filePart.filename());
         
         String filename = filePart.filename();
-        Flux<DataBuffer> fileContent = filePart.content();
         
         return excelParsingService.validateExcelFile(filename, null)
-            .flatMap(isValid -> {
+            .flatMapMany(isValid -> {
                 if (!isValid) {
-                    return Mono.error(new IllegalArgumentException("Invalid Excel file format"));
+                    return Flux.error(new IllegalArgumentException("Invalid Excel file format"));
                 }
-                return excelParsingService.parseExcelFile(fileContent, filename);
+                return excelParsingService.parseSheets(filePart);
             })
-            .flatMap(parsedData -> processExcelData(parsedData, userId))
+            .as(sheets -> processSheets(sheets, filename, userId, priority != null ? priority : DEFAULT_PRIORITY,
+                uploadBatchId))
             .doOnSuccess(response -> log.info("Successfully created {} tasks for upload batch: {}", 
                 response.getTotalTasks(), response.getUploadBatchId()))
             .doOnError(error -> log.error("Failed to create tasks from file: {}", filename, error));
     }
 
     /**
-     * Process parsed Excel data and create tasks
+     * Process parsed sheets and create tasks
      */
-    private Mono<CreateTaskResponse> processExcelData(ParsedExcelData parsedData, String userId) {
-        UUID uploadBatchId = UUID.randomUUID();
+    private Mono<CreateTaskResponse> processSheets(Flux<ParsedExcelData.SheetData> sheets,
+                                                   String filename, String userId, int priority,
+                                                   UUID uploadBatchId) {
         LocalDateTime now = LocalDateTime.now();
+        RowErrorReport errorReport = new RowErrorReport(excelProperties.getMaxReportedRowErrors());
         
-        return Flux.fromIterable(parsedData.getSheets())
+        Flux<ParsedExcelData.SheetData> taskSheets = sheets
+            .doOnNext(errorReport::add)
             .filter(sheet -> sheet.getTaskType() == TaskType.CHAT_EVALUATION)
-            .flatMap(sheetData -> {
-                // Create task for each valid sheet
-                Task task = Task.builder()
-                    .id(UUID.randomUUID())
-                    .userId(userId)
-                    .filename(parsedData.getFilename())
-                    .sheetName(sheetData.getSheetName())
-                    .taskType(sheetData.getTaskType())
-                    .taskStatus(TaskStatus.QUEUEING)
-                    .uploadBatchId(uploadBatchId)
-                    .rowCount(sheetData.getRowCount())
-                    .processedRows(0)
-                    .createdAt(now)
-                    .updatedAt(now)
-                    .build();
-                
-                return taskRepository.save(task)
-                    .flatMap(savedTask -> 
-                        saveInputData(savedTask, sheetData)
-                            .then(Mono.just(savedTask))
-                    );
-            })
-            .collectList()
-            .map(tasks -> CreateTaskResponse.builder()
+            // Header-only sheets and sheets whose rows were all rejected have nothing to evaluate
+            .filter(sheet -> sheet.getRowCount() > 0);
+        Function<ParsedExcelData.SheetData, Mono<Task>> persistSheet = sheetData -> persistSheet(sheetData,
+            Task.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .filename(filename)
+                .sheetName(sheetData.getSheetName())
+                .taskType(sheetData.getTaskType())
+                .taskStatus(TaskStatus.QUEUEING)
                 .uploadBatchId(uploadBatchId)
-                .tasks(tasks.stream()
+                .rowCount(sheetData.getRowCount())
+                .processedRows(0)
+                .priority(priority)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        
+        Mono<List<Task>> tasks = excelProperties.getRowValidationMode() == RowValidationMode.SKIP_INVALID_ROWS
+            ? persistSheetBySheet(taskSheets, persistSheet)
+            : persistAllOrNothing(taskSheets, persistSheet, errorReport);
+        return tasks
+            .flatMap(created -> created.isEmpty() && errorReport.getRejectedRowCount() == 0
+                ? Mono.error(new IllegalArgumentException("No rows to evaluate in file: " + filename))
+                : Mono.just(created))
+            .map(created -> CreateTaskResponse.builder()
+                .uploadBatchId(uploadBatchId)
+                .tasks(created.stream()
                     .map(task -> CreateTaskResponse.TaskSummary.builder()
                         .taskId(task.getId())
                         .sheetName(task.getSheetName())
@@ -99,29 +174,158 @@ public class TaskService {
                         .createdAt(task.getCreatedAt())
                         .build())
                     .toList())
-                .totalTasks(tasks.size())
+                .totalTasks(created.size())
+                .rejectedRowCount(errorReport.getRejectedRowCount())
+                .rejectedRows(errorReport.hasErrors() ? errorReport.getErrors() : null)
                 .build());
     }
 
+    /**
+     * Skip-invalid-rows mode: every sheet is persisted in its own transaction as soon as it is parsed, with
+     * app.excel.parallel-sheets enabled several at a time; rejected rows are only reported
+     */
+    private Mono<List<Task>> persistSheetBySheet(Flux<ParsedExcelData.SheetData> taskSheets,
+                                                 Function<ParsedExcelData.SheetData, Mono<Task>> persistSheet) {
+        List<Task> created = new CopyOnWriteArrayList<>();
+        return taskSheets
+            .flatMapSequential(sheetData -> transactionalOperator.transactional(persistSheet.apply(sheetData))
+                    .doOnNext(created::add)
+                    .doOnNext(this::publishCreated),
+                excelProperties.effectiveSheetParallelism())
+            .collectList()
+            // Sheets commit one by one, a later failure must not leave the earlier ones behind
+            .onErrorResume(error -> withdrawTasks(created).then(Mono.error(error)));
+    }
+
+    /**
+     * Reject-file mode: sheets are persisted one after another as they are parsed, all in one transaction
+     * The transaction's single connection runs one statement at a time, saving sheets concurrently on it would
+     * gain nothing.
+     * Nothing is buffered beyond the sheets being parsed; once a sheet has an invalid row the remaining
+     * sheets are only parsed for the error report and the transaction is rolled back at the end.
+     */
+    private Mono<List<Task>> persistAllOrNothing(Flux<ParsedExcelData.SheetData> taskSheets,
+                                                 Function<ParsedExcelData.SheetData, Mono<Task>> persistSheet,
+                                                 RowErrorReport errorReport) {
+        return taskSheets
+            .concatMap(sheetData -> errorReport.hasErrors() ? Mono.empty() : persistSheet.apply(sheetData))
+            .collectList()
+            .flatMap(tasks -> errorReport.hasErrors()
+                ? Mono.error(new RowValidationException(errorReport.getErrors(), errorReport.getRejectedRowCount()))
+                : Mono.just(tasks))
+            .as(transactionalOperator::transactional)
+            .doOnNext(tasks -> tasks.forEach(this::publishCreated));
+    }
+
+    /**
+     * Create a task that did not come from an Excel upload, such as a test run, together with its rows
+     * The task and its rows are written in one transaction, workers are told once it has committed.
+     */
+    public Mono<Task> createTask(Task task, List<ChatEvaluationInput> inputs) {
+        return entityTemplate.insert(task)
+            .flatMap(savedTask -> inputRepository.saveAll(Flux.fromIterable(inputs))
+                .then(taskQueueService.recordQueued(savedTask)))
+            .as(transactionalOperator::transactional)
+            .doOnNext(this::publishCreated);
+    }
+
+    private Mono<Task> persistSheet(ParsedExcelData.SheetData sheetData, Task task) {
+        // Task ids are assigned up front, so insert explicitly rather than save()
+        return entityTemplate.insert(task)
+            .flatMap(savedTask -> saveInputData(savedTask, sheetData)
+                .then(taskQueueService.recordQueued(savedTask)));
+    }
+
+    /**
+     * Announce a task whose transaction has committed
+     * Workers are only woken once the rows they are about to read are visible
+     */
+    private void publishCreated(Task task) {
+        taskProgressService.publish(task);
+        taskQueueService.publishQueued(task);
+    }
+
+    /**
+     * Take back the tasks already created from a file whose upload failed part way
+     * The client is told the whole file failed, keeping them would make its retry create duplicates. They are
+     * cancelled (stopping a worker that already claimed one) and marked deleted for {@link DeletedTaskReclaimer}.
+     */
+    private Mono<Void> withdrawTasks(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return Mono.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return Flux.fromIterable(tasks)
+            .concatMap(task -> taskRepository.cancel(task.getId(), now)
+                .flatMap(cancelled -> taskRepository.markDeleted(task.getId(), now)
+                    .doOnNext(deleted -> {
+                        if (cancelled > 0) {
+                            cancellationRegistry.cancel(task.getId());
+                            task.setTaskStatus(TaskStatus.CANCELLED);
+                            task.setCancelledAt(now);
+                        }
+                        task.setDeletedAt(now);
+                        task.setUpdatedAt(now);
+                        taskProgressService.publish(task);
+                    }))
+                .onErrorResume(error -> {
+                    log.error("Failed to withdraw task {} of failed upload", task.getId(), error);
+                    return Mono.empty();
+                }))
+            .then()
+            .doOnSuccess(ignored -> {
+                log.warn("Withdrew {} tasks created before the upload of {} failed", tasks.size(),
+                    tasks.get(0).getFilename());
+                deletedTaskReclaimer.wakeUp();
+            });
+    }
+
+    private static CreateTaskBatchResponse.FileResult fileCreated(String filename, CreateTaskResponse response) {
+        return CreateTaskBatchResponse.FileResult.builder()
+            .filename(filename)
+            .tasks(response.getTasks())
+            .totalTasks(response.getTotalTasks())
+            .rejectedRowCount(response.getRejectedRowCount())
+            .rejectedRows(response.getRejectedRows())
+            .build();
+    }
+
+    /**
+     * Report a failed file with the code {@link com.example.springhttpclientdatajpademo.exception.GlobalExceptionHandler}
+     * would have answered a single-file upload with
+     */
+    private static CreateTaskBatchResponse.FileResult fileFailed(String filename, Throwable error) {
+        CreateTaskBatchResponse.FileResult.FileResultBuilder result = CreateTaskBatchResponse.FileResult.builder()
+            .filename(filename);
+        if (error instanceof RowValidationException rowValidation) {
+            return result
+                .errorCode("ROW_VALIDATION_FAILED")
+                .errorMessage(rowValidation.getMessage())
+                .rejectedRowCount(rowValidation.getRejectedRowCount())
+                .rejectedRows(rowValidation.getRowErrors())
+                .build();
+        }
+        if (error instanceof IllegalArgumentException) {
+            return result.errorCode("INVALID_REQUEST").errorMessage(error.getMessage()).build();
+        }
+        return result.errorCode("INTERNAL_ERROR").errorMessage("An internal server error occurred").build();
+    }
+
     /**
      * Save input data for a task
      */
     private Mono<Void> saveInputData(Task task, ParsedExcelData.SheetData sheetData) {
-        return Flux.fromIterable(sheetData.getRows())
-            .flatMap(rowData -> {
-                ChatEvaluationInput input = ChatEvaluationInput.builder()
-                    .taskId(task.getId())
-                    .rowNumber(rowData.getRowNumber())
-                    .question(rowData.getQuestion())
-                    .goldenAnswer(rowData.getGoldenAnswer())
-                    .goldenCitations(rowData.getGoldenCitations())
-                    .metadata(rowData.getMetadata())
-                    .createdAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
-                    .build();
-                
-                return inputRepository.save(input);
-            })
+        LocalDateTime now = LocalDateTime.now();
+        return inputRepository.saveAll(Flux.fromIterable(sheetData.getRows())
+                .map(rowData -> inputStorageCodec.encode(ChatEvaluationInput.builder()
+                        .taskId(task.getId())
+                        .rowNumber(rowData.getRowNumber())
+                        .question(rowData.getQuestion())
+                        .goldenAnswer(rowData.getGoldenAnswer())
+                        .createdAt(now)
+                        .updatedAt(now),
+                        rowData.getGoldenCitations(), rowData.getMetadata())
+                    .build()))
             .then();
     }
 
@@ -129,7 +333,8 @@ public class TaskService {
      * Get user's tasks
      */
     public Flux<Task> getUserTasks(String userId) {
-        return taskRepository.findByUserId(userId);
+        return taskRepository.findByUserId(userId)
+            .filter(task -> task.getDeletedAt() == null);
     }
 
     /**
@@ -137,7 +342,136 @@ public class TaskService {
      */
     public Mono<Task> getTaskById(UUID taskId, String userId) {
         return taskRepository.findById(taskId)
-            .filter(task -> task.getUserId().equals(userId))
+            .filter(task -> task.getUserId().equals(userId) && task.getDeletedAt() == null)
             .switchIfEmpty(Mono.error(new IllegalArgumentException("Task not found or access denied")));
     }
-} 
\ No newline at end of file
+
+    /**
+     * Get the rows of a task with their results in row order (with ownership validation)
+     * Rows of archived tasks are read back from their archive file, see {@link TaskArchiver}.
+     */
+    public Flux<TaskResultRow> getTaskResults(UUID taskId, String userId) {
+        return getTaskById(taskId, userId)
+            .flatMapMany(taskResultReader::read);
+    }
+
+    /**
+     * Delete a task that is not processing (with ownership validation)
+     * The task disappears from the API right away, its input and result rows are removed in the background
+     * by {@link DeletedTaskReclaimer} in small chunks so the delete never runs as one large transaction.
+     */
+    public Mono<Void> deleteTask(UUID taskId, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return getTaskById(taskId, userId)
+            .flatMap(task -> {
+                if (task.getTaskStatus() == TaskStatus.PROCESSING) {
+                    return Mono.error(cannotDelete());
+                }
+                return taskRepository.markDeleted(taskId, now)
+                    // Claimed by a worker between the read and the update
+                    .flatMap(updated -> updated > 0 ? Mono.just(task) : Mono.error(cannotDelete()));
+            })
+            .map(task -> {
+                // Same transition as markDeleted, a queued task is cancelled along with the delete
+                if (task.getTaskStatus() == TaskStatus.QUEUEING) {
+                    task.setTaskStatus(TaskStatus.CANCELLED);
+                    task.setCancelledAt(now);
+                }
+                task.setDeletedAt(now);
+                task.setUpdatedAt(now);
+                return task;
+            })
+            .doOnNext(task -> {
+                log.info("Marked task {} ({} rows) deleted", taskId, task.getRowCount());
+                // Ends progress streams of the task and drops its cached state
+                taskProgressService.publish(task);
+                deletedTaskReclaimer.wakeUp();
+            })
+            .then();
+    }
+
+    private static InvalidTaskStatusException cannotDelete() {
+        return new InvalidTaskStatusException("Cannot delete task in processing status",
+            "Cancel the task first, then delete it");
+    }
+
+    /**
+     * Cancel a queued or processing task (with ownership validation)
+     * A task running on this node stops at once; one running on another node stops when that node's worker
+     * sees the cancelled row, see app.worker.cancellation-poll-interval. Results of evaluated rows are kept.
+     */
+    public Mono<Task> cancelTask(UUID taskId, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return getTaskById(taskId, userId)
+            .flatMap(task -> {
+                if (task.getTaskStatus().isTerminal()) {
+                    return Mono.error(cannotCancel(task.getTaskStatus()));
+                }
+                return taskRepository.cancel(taskId, now)
+                    .flatMap(updated -> updated > 0
+                        ? Mono.just(task)
+                        // Finished between the read and the update
+                        : taskRepository.findById(taskId)
+                            .flatMap(current -> Mono.error(cannotCancel(current.getTaskStatus()))));
+            })
+            .map(task -> {
+                task.setTaskStatus(TaskStatus.CANCELLED);
+                task.setCancelledAt(now);
+                task.setUpdatedAt(now);
+                return task;
+            })
+            .doOnNext(task -> {
+                if (cancellationRegistry.cancel(taskId)) {
+                    log.info("Stopped processing of cancelled task: {}", taskId);
+                }
+                taskProgressService.publish(task);
+            });
+    }
+
+    private static InvalidTaskStatusException cannotCancel(TaskStatus status) {
+        return new InvalidTaskStatusException("Cannot cancel " + status.getValue() + " task",
+            "Only queueing or processing tasks can be cancelled");
+    }
+
+    /**
+     * Stream status and progress of a task (with ownership validation)
+     * The task row is read once to check ownership, further updates come from the in-process broadcast, which
+     * {@link TaskProgressRefresher} feeds with the work done on other nodes when enabled
+     */
+    public Flux<TaskProgressEvent> watchTask(UUID taskId, String userId) {
+        return getTaskById(taskId, userId)
+            .flatMapMany(taskProgressService::taskEvents);
+    }
+
+    /**
+     * Stream status and progress of every task in an upload batch (with ownership validation)
+     */
+    public Flux<TaskProgressEvent> watchBatch(UUID uploadBatchId, String userId) {
+        return getBatchTasks(uploadBatchId, userId)
+            .flatMapMany(tasks -> taskProgressService.batchEvents(uploadBatchId, tasks));
+    }
+
+    /**
+     * Get similarity statistics of a task's results so far (with ownership validation)
+     */
+    public Mono<EvaluationStats> getTaskStats(UUID taskId, String userId) {
+        return getTaskById(taskId, userId)
+            .flatMap(evaluationStatsService::taskStats);
+    }
+
+    /**
+     * Get similarity statistics of the results of every task in an upload batch (with ownership validation)
+     */
+    public Mono<EvaluationStats> getBatchStats(UUID uploadBatchId, String userId) {
+        return getBatchTasks(uploadBatchId, userId)
+            .flatMap(tasks -> evaluationStatsService.batchStats(uploadBatchId, tasks));
+    }
+
+    private Mono<List<Task>> getBatchTasks(UUID uploadBatchId, String userId) {
+        return taskRepository.findByUploadBatchId(uploadBatchId)
+            .filter(task -> task.getUserId().equals(userId) && task.getDeletedAt() == null)
+            .collectList()
+            .filter(tasks -> !tasks.isEmpty())
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Upload batch not found or access denied")));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ChatApiProperties;
+import com.example.springhttpclientdatajpademo.config.TestAutomationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.util.Map;
+
+/**
+ * Calls the chat platform as individual test users
+ * Every test user gets a session with its own auth token and its own small connection pool, so one user's
+ * slow answers never hold connections another user is waiting for and no request goes out with the wrong
+ * token. Tokens are created with the service-level app.chat.api-token acting as the test user.
+ */
+@Slf4j
+@Component
+public class TestAutomationClient {
+
+    private final WebClient.Builder webClientBuilder;
+    private final ChatApiProperties chatApiProperties;
+    private final TestAutomationProperties properties;
+
+    public TestAutomationClient(WebClient.Builder webClientBuilder, ChatApiProperties chatApiProperties,
+                                TestAutomationProperties properties) {
+        this.webClientBuilder = webClientBuilder;
+        this.chatApiProperties = chatApiProperties;
+        this.properties = properties;
+    }
+
+    /**
+     * Create an auth token for a test user and open the user's session
+     * The session must be closed to release its connections.
+     */
+    public Mono<TestUserSession> openSession(String testUserId) {
+        return Mono.defer(() -> {
+            ConnectionProvider connections = ConnectionProvider.builder("test-user-" + testUserId)
+                .maxConnections(properties.getPerUserConcurrency())
+                // Rows of the same user beyond per-user-concurrency wait for a connection instead of failing
+                .pendingAcquireMaxCount(-1)
+                .build();
+            WebClient client = webClientBuilder.clone()
+                .baseUrl(chatApiProperties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(
+                    ChatApiClient.configure(HttpClient.create(connections), chatApiProperties)))
+                .build();
+            return retried(client.post()
+                    .uri(properties.getAuthTokenPath())
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + chatApiProperties.getApiToken())
+                    .header(properties.getActAsHeader(), testUserId)
+                    .bodyValue(Map.of())
+                    .retrieve()
+                    .bodyToMono(AuthToken.class), properties.getAuthTokenPath())
+                .map(token -> new TestUserSession(testUserId, client.mutate()
+                    .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token.token())
+                    .build(), connections))
+                .doOnError(error -> connections.dispose());
+        });
+    }
+
+    private <T> Mono<T> retried(Mono<T> call, String path) {
+        return call
+            .timeout(chatApiProperties.getTimeout())
+            .retryWhen(Retry.backoff(chatApiProperties.getMaxRetries(), chatApiProperties.getRetryBackoff())
+                .filter(ChatApiClient::isRetryable)
+                .doBeforeRetry(signal -> log.warn("Retrying {} after failure (attempt {}/{}): {}", path,
+                    signal.totalRetries() + 1, chatApiProperties.getMaxRetries(), signal.failure().getMessage())));
+    }
+
+    /**
+     * Auth token and connections of one test user
+     */
+    public final class TestUserSession {
+
+        private final String testUserId;
+        private final WebClient client;
+        private final ConnectionProvider connections;
+
+        private TestUserSession(String testUserId, WebClient client, ConnectionProvider connections) {
+            this.testUserId = testUserId;
+            this.client = client;
+            this.connections = connections;
+        }
+
+        public String testUserId() {
+            return testUserId;
+        }
+
+        /**
+         * Ask the chat platform a question as this test user
+         */
+        public Mono<ChatApiClient.ChatAnswer> chat(String question) {
+            return retried(client.post()
+                .uri(chatApiProperties.getChatPath())
+                .bodyValue(Map.of("question", question))
+                .retrieve()
+                .bodyToMono(ChatApiClient.ChatAnswer.class), chatApiProperties.getChatPath());
+        }
+
+        /**
+         * Release the session's connections
+         */
+        public Mono<Void> close() {
+            return connections.disposeLater();
+        }
+    }
+
+    private record AuthToken(String token) {
+    }
+}
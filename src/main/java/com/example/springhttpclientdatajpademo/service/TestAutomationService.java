@@ -0,0 +1,214 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.TestAutomationProperties;
+import com.example.springhttpclientdatajpademo.dto.CreateTaskResponse;
+import com.example.springhttpclientdatajpademo.dto.TestRunRequest;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Test runs: predefined questions asked as a set of test users
+ * <p>
+ * A test run is a task of type test-automation with one row per test user × question pair, so it is queued,
+ * processed, cancelled and watched like any other task and its answers are read through the task's results
+ * and statistics. The worker evaluates its rows through {@link #ask}: every test user gets one session (auth
+ * token and connection pool) per task, opened by the user's first row and closed when the task finishes.
+ * A failed call or test user becomes a result with an error message, the run goes on.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TestAutomationService {
+
+    /**
+     * Metadata key of a test run row naming the test user its question is asked as
+     */
+    public static final String TEST_USER_KEY = "test_user";
+
+    static final String TEST_RUN_FILENAME = "test-run";
+
+    private final TestAutomationClient client;
+    private final TestAutomationProperties properties;
+    private final TaskService taskService;
+    private final InputStorageCodec inputStorageCodec;
+    private final ObjectMapper objectMapper;
+    private final Map<UUID, Map<String, Mono<TestAutomationClient.TestUserSession>>> sessions =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Validate a test run request against the allowlists and queue the test run as a task
+     */
+    public Mono<CreateTaskResponse> createTestRun(String requestedBy, TestRunRequest request) {
+        return Mono.fromCallable(() -> {
+                if (!properties.getRequestUsers().isEmpty() && !properties.getRequestUsers().contains(requestedBy)) {
+                    throw new IllegalArgumentException("User is not allowed to start test runs");
+                }
+                return new TestRunRequest(
+                    approved(request.getTestUsers(), properties.getTestUsers(), "test users"),
+                    approved(request.getQuestions(), properties.getQuestions(), "questions"));
+            })
+            .flatMap(approved -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<String> testUsers = approved.getTestUsers();
+                List<String> questions = approved.getQuestions();
+                Task task = Task.builder()
+                    .id(UUID.randomUUID())
+                    .userId(requestedBy)
+                    .filename(TEST_RUN_FILENAME)
+                    .sheetName(String.format("%d test users x %d questions", testUsers.size(), questions.size()))
+                    .taskType(TaskType.TEST_AUTOMATION)
+                    .taskStatus(TaskStatus.QUEUEING)
+                    .uploadBatchId(UUID.randomUUID())
+                    .rowCount(testUsers.size() * questions.size())
+                    .processedRows(0)
+                    .priority(TaskService.DEFAULT_PRIORITY)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+                return taskService.createTask(task, rows(task, testUsers, questions, now));
+            })
+            .map(task -> CreateTaskResponse.builder()
+                .uploadBatchId(task.getUploadBatchId())
+                .tasks(List.of(CreateTaskResponse.TaskSummary.builder()
+                    .taskId(task.getId())
+                    .sheetName(task.getSheetName())
+                    .taskType(task.getTaskType())
+                    .rowCount(task.getRowCount())
+                    .createdAt(task.getCreatedAt())
+                    .build()))
+                .totalTasks(1)
+                .rejectedRowCount(0)
+                .build())
+            .doOnSuccess(response -> log.info("Queued test run {} for {}: {} calls",
+                response.getTasks().get(0).getTaskId(), requestedBy, response.getTasks().get(0).getRowCount()));
+    }
+
+    /**
+     * Ask a test run row's question as the row's test user
+     * Never fails: a call without an answer is returned as a result with an error message.
+     */
+    public Mono<ChatEvaluationOutput> ask(Task task, ChatEvaluationInput input) {
+        return Mono.defer(() -> {
+            String testUserId = inputStorageCodec.metadata(input).get(TEST_USER_KEY);
+            long started = System.currentTimeMillis();
+            return session(task.getId(), testUserId)
+                .flatMap(session -> session.chat(input.getQuestion())
+                    .map(answer -> {
+                        ArrayNode citations = objectMapper.createArrayNode();
+                        if (answer.citations() != null) {
+                            answer.citations().forEach(citations::add);
+                        }
+                        return output(task, input, started)
+                            .apiAnswer(answer.answer() != null ? answer.answer() : "")
+                            .apiCitations(citations)
+                            .apiResponseMetadata(answer.metadata())
+                            .build();
+                    })
+                    .onErrorResume(error -> Mono.just(failed(task, input, started, error.getMessage()))))
+                // Without a token none of the user's questions can be asked
+                .onErrorResume(error -> Mono.just(
+                    failed(task, input, started, "Authentication failed: " + error.getMessage())));
+        });
+    }
+
+    /**
+     * Close the sessions of a test run that has completed, failed or been cancelled
+     */
+    public void taskFinished(UUID taskId) {
+        Map<String, Mono<TestAutomationClient.TestUserSession>> taskSessions = sessions.remove(taskId);
+        if (taskSessions == null) {
+            return;
+        }
+        Flux.fromIterable(taskSessions.values())
+            // Sessions whose token could not be created have nothing to close
+            .flatMap(session -> session.flatMap(TestAutomationClient.TestUserSession::close)
+                .onErrorResume(error -> Mono.empty()))
+            .subscribe();
+    }
+
+    /**
+     * Session of a test user within a test run, opened once and shared by all of the user's rows
+     * A session that could not be opened is remembered too, so a rejected test user costs one token request.
+     */
+    private Mono<TestAutomationClient.TestUserSession> session(UUID taskId, String testUserId) {
+        if (testUserId == null) {
+            return Mono.error(new IllegalStateException("Row has no test user"));
+        }
+        return sessions.computeIfAbsent(taskId, id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(testUserId, id -> client.openSession(id)
+                .doOnError(error -> log.warn("Could not open session for test user {}: {}", id, error.getMessage()))
+                .cache());
+    }
+
+    /**
+     * One row per test user × question pair, question by question, so the rows the worker has in flight
+     * are spread over the test users rather than queueing on one user's connections
+     */
+    private List<ChatEvaluationInput> rows(Task task, List<String> testUsers, List<String> questions,
+                                           LocalDateTime now) {
+        List<ChatEvaluationInput> rows = new ArrayList<>(testUsers.size() * questions.size());
+        for (String question : questions) {
+            for (String testUserId : testUsers) {
+                rows.add(inputStorageCodec.encode(ChatEvaluationInput.builder()
+                        .taskId(task.getId())
+                        .rowNumber(rows.size() + 1)
+                        .question(question)
+                        .goldenAnswer("")
+                        .createdAt(now)
+                        .updatedAt(now),
+                        objectMapper.createArrayNode(),
+                        objectMapper.createObjectNode().put(TEST_USER_KEY, testUserId))
+                    .build());
+            }
+        }
+        return rows;
+    }
+
+    private ChatEvaluationOutput failed(Task task, ChatEvaluationInput input, long started, String error) {
+        return output(task, input, started)
+            .apiAnswer("")
+            .apiCitations(objectMapper.createArrayNode())
+            .errorMessage(error != null ? error : "Unknown error")
+            .build();
+    }
+
+    private static ChatEvaluationOutput.ChatEvaluationOutputBuilder output(Task task, ChatEvaluationInput input,
+                                                                          long started) {
+        return ChatEvaluationOutput.builder()
+            .taskId(task.getId())
+            .inputId(input.getId())
+            .processingTimeMs((int) (System.currentTimeMillis() - started))
+            .createdAt(LocalDateTime.now());
+    }
+
+    private static List<String> approved(List<String> requested, List<String> allowed, String kind) {
+        if (requested == null || requested.isEmpty()) {
+            if (allowed.isEmpty()) {
+                throw new IllegalArgumentException("No " + kind + " configured");
+            }
+            return allowed;
+        }
+        List<String> unknown = requested.stream().filter(value -> !allowed.contains(value)).toList();
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Not approved " + kind + ": " + unknown);
+        }
+        return requested.stream().distinct().toList();
+    }
+}
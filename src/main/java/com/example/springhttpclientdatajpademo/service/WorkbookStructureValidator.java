@@ -0,0 +1,320 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ExcelProperties;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fast structural checks on an .xlsx package before any sheet is fully parsed
+ * Reads workbook.xml for the sheet count, the first non-blank row of every sheet part and only as much
+ * of the shared strings table as the header cells reference, so malformed uploads are rejected
+ * after a few KB of XML instead of after a full parse.
+ */
+@Slf4j
+class WorkbookStructureValidator {
+
+    private final ExcelProperties excelProperties;
+
+    WorkbookStructureValidator(ExcelProperties excelProperties) {
+        this.excelProperties = excelProperties;
+    }
+
+    /**
+     * Validate sheet count and header rows of the workbook
+     * @param pkg Opened .xlsx package
+     * @param filename Original filename
+     * @throws IllegalArgumentException if the workbook structure is not acceptable
+     */
+    void validate(OPCPackage pkg, String filename) throws Exception {
+        XSSFReader reader = new XSSFReader(pkg);
+
+        Map<String, PackagePart> sheetParts = new LinkedHashMap<>();
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream ignored = sheets.next()) {
+                sheetParts.put(sheets.getSheetName(), sheets.getSheetPart());
+            }
+        }
+        if (sheetParts.isEmpty()) {
+            throw new IllegalArgumentException("Workbook contains no sheets: " + filename);
+        }
+        if (sheetParts.size() > excelProperties.getMaxSheets()) {
+            throw new IllegalArgumentException(String.format(
+                "Workbook has %d sheets, the maximum is %d", sheetParts.size(), excelProperties.getMaxSheets()));
+        }
+
+        Map<String, List<List<HeaderCell>>> headerCells = new LinkedHashMap<>();
+        for (Map.Entry<String, PackagePart> sheet : sheetParts.entrySet()) {
+            try (InputStream sheetStream = sheet.getValue().getInputStream()) {
+                headerCells.put(sheet.getKey(), readHeaderCells(sheetStream));
+            }
+        }
+
+        Map<Integer, String> sharedStrings = readSharedStrings(reader, maxSharedStringIndex(headerCells));
+
+        boolean hasTaskSheet = false;
+        for (Map.Entry<String, List<List<HeaderCell>>> sheet : headerCells.entrySet()) {
+            List<String> headers = headerRow(sheet.getKey(), sheet.getValue(), sharedStrings);
+            ChatEvaluationSheetReader.checkHeaders(sheet.getKey(), headers);
+            hasTaskSheet |= ChatEvaluationSheetReader.detectTaskType(headers) == TaskType.CHAT_EVALUATION;
+        }
+        if (!hasTaskSheet) {
+            throw noTaskSheet(filename);
+        }
+        log.debug("Workbook structure validated for file: {} ({} sheets)", filename, sheetParts.size());
+    }
+
+    /**
+     * Rejection for a workbook none of whose sheets can become a task, shared with the .xls path
+     */
+    static IllegalArgumentException noTaskSheet(String filename) {
+        return new IllegalArgumentException(String.format(
+            "No sheet in %s contains the required columns: %s", filename,
+            String.join(", ", ChatEvaluationSheetReader.REQUIRED_COLUMNS)));
+    }
+
+    private List<List<HeaderCell>> readHeaderCells(InputStream sheetStream) throws Exception {
+        HeaderRowHandler handler = new HeaderRowHandler();
+        parseUntilStopped(sheetStream, handler);
+        return handler.candidates;
+    }
+
+    /**
+     * First candidate row with a non-blank value once shared strings are resolved, the row
+     * ChatEvaluationSheetReader will take as the header
+     */
+    private static List<String> headerRow(String sheetName, List<List<HeaderCell>> candidates,
+                                          Map<Integer, String> sharedStrings) {
+        for (List<HeaderCell> candidate : candidates) {
+            List<String> headers = candidate.stream()
+                .map(cell -> cell.resolve(sheetName, sharedStrings))
+                .toList();
+            if (!headers.stream().allMatch(String::isBlank)) {
+                return headers;
+            }
+        }
+        return List.of();
+    }
+
+    private Map<Integer, String> readSharedStrings(XSSFReader reader, int maxIndex) throws Exception {
+        if (maxIndex < 0) {
+            return Map.of();
+        }
+        SharedStringsPrefixHandler handler = new SharedStringsPrefixHandler(maxIndex);
+        try (InputStream sharedStringsStream = reader.getSharedStringsData()) {
+            parseUntilStopped(sharedStringsStream, handler);
+        }
+        return handler.strings;
+    }
+
+    private static int maxSharedStringIndex(Map<String, List<List<HeaderCell>>> headerCells) {
+        return headerCells.values().stream()
+            .flatMap(List::stream)
+            .flatMap(List::stream)
+            .filter(HeaderCell::isSharedString)
+            .mapToInt(HeaderCell::sharedStringIndex)
+            .max()
+            .orElse(-1);
+    }
+
+    private static void parseUntilStopped(InputStream stream, DefaultHandler handler) throws Exception {
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(handler);
+        try {
+            xmlReader.parse(new InputSource(stream));
+        } catch (StopParsingException e) {
+            // Everything needed has been read
+        }
+    }
+
+    /**
+     * Raw header cell as stored in the sheet XML, shared strings are resolved afterwards
+     */
+    private record HeaderCell(String type, String value) {
+
+        boolean isSharedString() {
+            return "s".equals(type);
+        }
+
+        int sharedStringIndex() {
+            try {
+                int index = Integer.parseInt(value.trim());
+                if (index >= 0) {
+                    return index;
+                }
+            } catch (NumberFormatException e) {
+                // Rejected below
+            }
+            throw new IllegalArgumentException("Header cell refers to an invalid shared string index: " + value);
+        }
+
+        String resolve(String sheetName, Map<Integer, String> sharedStrings) {
+            if (!isSharedString()) {
+                return value;
+            }
+            String resolved = sharedStrings.get(sharedStringIndex());
+            if (resolved == null) {
+                throw new IllegalArgumentException(String.format(
+                    "Header of sheet '%s' refers to shared string %s, which the workbook does not contain",
+                    sheetName, value.trim()));
+            }
+            return resolved;
+        }
+    }
+
+    /**
+     * Collects the cells of the leading rows that have any value, then stops the parse
+     * Whether a shared string is blank is only known once it is resolved, so rows made of shared strings are
+     * kept as candidates until a row with inline text shows up or MAX_CANDIDATE_ROWS rows were collected.
+     */
+    private static class HeaderRowHandler extends DefaultHandler {
+
+        private static final int MAX_CANDIDATE_ROWS = 5;
+
+        private final TreeMap<Integer, HeaderCell> row = new TreeMap<>();
+        private final StringBuilder text = new StringBuilder();
+        private final List<List<HeaderCell>> candidates = new ArrayList<>();
+        private boolean rowHasText;
+        private int column;
+        private int nextColumn;
+        private String cellType;
+        private boolean inValue;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    row.clear();
+                    rowHasText = false;
+                    nextColumn = 0;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? new CellReference(ref).getCol() : nextColumn;
+                    nextColumn = column + 1;
+                    cellType = attributes.getValue("t");
+                    text.setLength(0);
+                }
+                case "v", "t" -> inValue = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "c" -> {
+                    // Same test as ChatEvaluationSheetReader, whitespace-only cells do not make a header row
+                    if (!text.toString().isBlank()) {
+                        HeaderCell cell = new HeaderCell(cellType, text.toString());
+                        row.put(column, cell);
+                        rowHasText |= !cell.isSharedString();
+                    }
+                }
+                case "row" -> {
+                    if (!row.isEmpty()) {
+                        candidates.add(new ArrayList<>(row.values()));
+                        if (rowHasText || candidates.size() >= MAX_CANDIDATE_ROWS) {
+                            throw new StopParsingException();
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads shared strings up to a given index, then stops the parse
+     */
+    private static class SharedStringsPrefixHandler extends DefaultHandler {
+
+        private final int maxIndex;
+        private final Map<Integer, String> strings = new HashMap<>();
+        private final StringBuilder text = new StringBuilder();
+        private int index = -1;
+        private boolean inText;
+        private boolean inPhonetic;
+
+        SharedStringsPrefixHandler(int maxIndex) {
+            this.maxIndex = maxIndex;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "si" -> {
+                    index++;
+                    text.setLength(0);
+                }
+                case "rPh" -> inPhonetic = true;
+                case "t" -> inText = !inPhonetic;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "t" -> inText = false;
+                case "rPh" -> inPhonetic = false;
+                case "si" -> {
+                    strings.put(index, text.toString());
+                    if (index >= maxIndex) {
+                        throw new StopParsingException();
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static class StopParsingException extends SAXException {
+
+        StopParsingException() {
+            super("Stop parsing");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -12,14 +12,18 @@ CREATE TABLE tasks (
     upload_batch_id UUID NOT NULL,
     row_count INTEGER NOT NULL DEFAULT 0,
     processed_rows INTEGER NOT NULL DEFAULT 0,
+    priority INTEGER NOT NULL DEFAULT 5,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     started_at TIMESTAMP,
     completed_at TIMESTAMP,
     cancelled_at TIMESTAMP,
+    deleted_at TIMESTAMP,
+    archived_at TIMESTAMP,
     error_message CLOB,
     
-    CONSTRAINT valid_row_counts CHECK (processed_rows >= 0 AND processed_rows <= row_count)
+    CONSTRAINT valid_row_counts CHECK (processed_rows >= 0 AND processed_rows <= row_count),
+    CONSTRAINT valid_priority CHECK (priority BETWEEN 1 AND 10)
 );
 
 -- Chat evaluation input data
@@ -29,14 +33,17 @@ CREATE TABLE chat_evaluation_input (
     row_number INTEGER NOT NULL,
     question CLOB NOT NULL,
     golden_answer CLOB NOT NULL,
-    golden_citations CLOB NOT NULL,
+    golden_citations CLOB,
     metadata CLOB,
+    golden_citations_packed VARBINARY,
+    metadata_packed VARBINARY,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
     CONSTRAINT unique_task_row_content UNIQUE (task_id, row_number),
     CONSTRAINT fk_task_content FOREIGN KEY (task_id) REFERENCES tasks(id) ON DELETE CASCADE,
-    CONSTRAINT valid_row_number CHECK (row_number > 0)
+    CONSTRAINT valid_row_number CHECK (row_number > 0),
+    CONSTRAINT citations_present CHECK (golden_citations IS NOT NULL OR golden_citations_packed IS NOT NULL)
 
 );
 
@@ -47,10 +54,11 @@ CREATE TABLE chat_evaluation_output (
     input_id BIGINT NOT NULL,
     api_answer CLOB NOT NULL,
     api_citations CLOB NOT NULL,
-    answer_similarity DECIMAL(5,4) NOT NULL,
-    citation_similarity DECIMAL(5,4) NOT NULL,
+    answer_similarity DECIMAL(5,4),
+    citation_similarity DECIMAL(5,4),
     processing_time_ms INTEGER,
     api_response_metadata CLOB,
+    error_message CLOB,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
     CONSTRAINT unique_input_result UNIQUE (input_id),
@@ -61,7 +69,37 @@ CREATE TABLE chat_evaluation_output (
 
 );
 
+-- Similarity statistics per task, maintained while the task is processed
+CREATE TABLE task_evaluation_stats (
+    task_id UUID PRIMARY KEY,
+    upload_batch_id UUID NOT NULL,
+    result_count BIGINT NOT NULL DEFAULT 0,
+    answer_similarity_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    citation_similarity_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    processing_time_ms_sum BIGINT NOT NULL DEFAULT 0,
+    answer_similarity_histogram VARBINARY,
+    citation_similarity_histogram VARBINARY,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    CONSTRAINT fk_task_stats FOREIGN KEY (task_id) REFERENCES tasks(id) ON DELETE CASCADE
+);
+
+-- Task lifecycle events for other nodes (transactional outbox)
+CREATE TABLE task_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    task_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    origin_node UUID NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Indexes for performance optimization
 CREATE INDEX idx_tasks_user_id ON tasks(user_id);
+CREATE INDEX idx_tasks_status_priority ON tasks(task_status, priority, created_at);
+CREATE INDEX idx_tasks_deleted_at ON tasks(deleted_at);
 CREATE INDEX idx_chat_eval_input_task_id ON chat_evaluation_input(task_id);
-CREATE INDEX idx_chat_eval_output_input_id ON chat_evaluation_output(input_id); 
\ No newline at end of file
+CREATE INDEX idx_chat_eval_output_input_id ON chat_evaluation_output(input_id);
+CREATE INDEX idx_chat_eval_output_task_id ON chat_evaluation_output(task_id);
+CREATE INDEX idx_task_eval_stats_batch_id ON task_evaluation_stats(upload_batch_id);
+CREATE INDEX idx_task_outbox_created_at ON task_outbox(created_at);
\ No newline at end of file
@@ -12,14 +12,18 @@ CREATE TABLE tasks (
     upload_batch_id UUID NOT NULL,
     row_count INTEGER NOT NULL DEFAULT 0,
     processed_rows INTEGER NOT NULL DEFAULT 0,
+    priority INTEGER NOT NULL DEFAULT 5,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
     started_at TIMESTAMP WITH TIME ZONE,
     completed_at TIMESTAMP WITH TIME ZONE,
     cancelled_at TIMESTAMP WITH TIME ZONE,
+    deleted_at TIMESTAMP WITH TIME ZONE,
+    archived_at TIMESTAMP WITH TIME ZONE,
     error_message TEXT,
     
-    CONSTRAINT valid_row_counts CHECK (processed_rows >= 0 AND processed_rows <= row_count)
+    CONSTRAINT valid_row_counts CHECK (processed_rows >= 0 AND processed_rows <= row_count),
+    CONSTRAINT valid_priority CHECK (priority BETWEEN 1 AND 10)
 );
 
 -- Chat evaluation input data
@@ -29,15 +33,18 @@ CREATE TABLE chat_evaluation_input (
     row_number INTEGER NOT NULL,
     question TEXT NOT NULL,
     golden_answer TEXT NOT NULL,
-    golden_citations JSONB NOT NULL,
+    golden_citations JSONB,
     metadata JSONB,
+    golden_citations_packed BLOB,
+    metadata_packed BLOB,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
     
     CONSTRAINT unique_task_row_content UNIQUE (task_id, row_number),
     CONSTRAINT fk_task_content FOREIGN KEY (task_id) REFERENCES tasks(id) ON DELETE CASCADE,
     CONSTRAINT valid_row_number CHECK (row_number > 0),
-    CONSTRAINT valid_citations_format CHECK (JSON_TYPE(golden_citations) = 'ARRAY')
+    CONSTRAINT valid_citations_format CHECK (JSON_TYPE(golden_citations) = 'ARRAY'),
+    CONSTRAINT citations_present CHECK (golden_citations IS NOT NULL OR golden_citations_packed IS NOT NULL)
 );
 
 -- Chat evaluation output results
@@ -47,10 +54,11 @@ CREATE TABLE chat_evaluation_output (
     input_id BIGINT NOT NULL,
     api_answer TEXT NOT NULL,
     api_citations JSONB NOT NULL,
-    answer_similarity DECIMAL(5,4) NOT NULL,
-    citation_similarity DECIMAL(5,4) NOT NULL,
+    answer_similarity DECIMAL(5,4),
+    citation_similarity DECIMAL(5,4),
     processing_time_ms INTEGER,
     api_response_metadata JSONB,
+    error_message TEXT,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
     
     CONSTRAINT unique_input_result UNIQUE (input_id),
@@ -61,7 +69,37 @@ CREATE TABLE chat_evaluation_output (
     CONSTRAINT valid_api_citations_format CHECK (JSON_TYPE(api_citations) = 'ARRAY')
 );
 
+-- Similarity statistics per task, maintained while the task is processed
+CREATE TABLE task_evaluation_stats (
+    task_id UUID PRIMARY KEY,
+    upload_batch_id UUID NOT NULL,
+    result_count BIGINT NOT NULL DEFAULT 0,
+    answer_similarity_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    citation_similarity_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    processing_time_ms_sum BIGINT NOT NULL DEFAULT 0,
+    answer_similarity_histogram BLOB,
+    citation_similarity_histogram BLOB,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    
+    CONSTRAINT fk_task_stats FOREIGN KEY (task_id) REFERENCES tasks(id) ON DELETE CASCADE
+);
+
+-- Task lifecycle events for other nodes (transactional outbox)
+CREATE TABLE task_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    task_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    origin_node UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
 -- Indexes for performance optimization
 CREATE INDEX idx_tasks_user_id ON tasks(user_id);
+CREATE INDEX idx_tasks_status_priority ON tasks(task_status, priority, created_at);
+CREATE INDEX idx_tasks_deleted_at ON tasks(deleted_at);
 CREATE INDEX idx_chat_eval_input_task_id ON chat_evaluation_input(task_id);
-CREATE INDEX idx_chat_eval_output_input_id ON chat_evaluation_output(input_id); 
\ No newline at end of file
+CREATE INDEX idx_chat_eval_output_input_id ON chat_evaluation_output(input_id);
+CREATE INDEX idx_chat_eval_output_task_id ON chat_evaluation_output(task_id);
+CREATE INDEX idx_task_eval_stats_batch_id ON task_evaluation_stats(upload_batch_id);
+CREATE INDEX idx_task_outbox_created_at ON task_outbox(created_at);
@@ -0,0 +1,28 @@
+package com.example.springhttpclientdatajpademo;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Own in-memory database, the dev profile's one already has the schema from other test contexts
+@SpringBootTest(properties = "spring.r2dbc.url=r2dbc:h2:mem:///fast_startup;DB_CLOSE_DELAY=-1")
+@ActiveProfiles({"dev", "fast-startup"})
+class FastStartupProfileTests {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void contextLoadsWithoutJpa() {
+        assertThat(context.getBeanNamesForType(ConnectionFactory.class)).isNotEmpty();
+        assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
+        assertThat(context.containsBean("entityManagerFactory")).isFalse();
+    }
+}
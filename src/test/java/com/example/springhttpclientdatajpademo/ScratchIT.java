@@ -0,0 +1,77 @@
+package com.example.springhttpclientdatajpademo;
+
+import com.example.springhttpclientdatajpademo.repository.*;
+import com.example.springhttpclientdatajpademo.service.*;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import java.io.ByteArrayOutputStream;
+
+@SpringBootTest(properties = {"app.storage.input-format=compact", "app.file.spool-to-disk=false", "app.worker.outbox-poll-interval=200ms"})
+class ScratchIT {
+    static DisposableServer server = HttpServer.create().port(0)
+        .route(r -> r.post("/chat", (req, res) -> res.header("Content-Type", "application/json").sendString(Mono.just("{\"answer\":\"a\",\"citations\":[\"https://x/1\"]}")))
+                     .post("/similarity", (req, res) -> res.header("Content-Type", "application/json").sendString(Mono.just("{\"similarity\":0.5}"))))
+        .bindNow();
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) { r.add("app.chat.base-url", () -> "http://localhost:" + server.port()); r.add("app.archive.enabled", () -> "true"); r.add("app.archive.retention", () -> "0s"); r.add("app.archive.poll-interval", () -> "2s"); r.add("app.archive.page-size", () -> "2"); r.add("app.archive.directory", () -> "target/scratch-archive"); }
+
+    @Autowired TaskService taskService;
+    @Autowired TaskRepository taskRepository;
+    @Autowired ChatEvaluationInputRepository inputRepository;
+    @Autowired ChatEvaluationOutputRepository outputRepository;
+    @Autowired TaskOutboxRepository outboxRepository;
+
+    @Test
+    void run() throws Exception {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        for (int s = 0; s < 3; s++) {
+            var sh = wb.createSheet("S" + s);
+            var h = sh.createRow(0);
+            h.createCell(0).setCellValue("question"); h.createCell(1).setCellValue("golden_answer"); h.createCell(2).setCellValue("golden_citations");
+            for (int r = 1; r <= 5; r++) { var row = sh.createRow(r); row.createCell(0).setCellValue("q"+r); row.createCell(1).setCellValue("a"); row.createCell(2).setCellValue("https://x/" + r);}
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(); wb.write(out);
+        FilePart fp = Mockito.mock(FilePart.class);
+        Mockito.when(fp.filename()).thenReturn("t.xlsx");
+        Mockito.when(fp.content()).thenReturn(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(out.toByteArray())));
+        var created = taskService.createTasks(fp, "u", null).block();
+        System.out.println("RESULT " + created);
+        var victim = created.getTasks().get(2).getTaskId();
+        Thread.sleep(300);
+        System.out.println("CANCEL " + taskService.cancelTask(victim, "u").block());
+        System.out.println("CANCELLED_IN " + taskRepository.findCancelledIn(java.util.List.of(victim, created.getTasks().get(0).getTaskId())).collectList().block());
+        try { taskService.cancelTask(victim, "u").block(); } catch (Exception e) { System.out.println("RECANCEL " + e); }
+        System.out.println("OUTBOX " + outboxRepository.findAfter(0, 10).collectList().block());
+        Thread.sleep(3000);
+        taskRepository.findAll().doOnNext(t -> System.out.println("TASK " + t)).blockLast();
+        System.out.println("OUTPUTS " + outputRepository.count().block() + " " + outputRepository.findAll().blockFirst());
+        System.out.println("TSTATS " + taskService.getTaskStats(created.getTasks().get(0).getTaskId(), "u").block());
+        System.out.println("BSTATS " + taskService.getBatchStats(created.getUploadBatchId(), "u").block());
+        System.out.println("PURGE " + outboxRepository.deleteCreatedBefore(java.time.LocalDateTime.now().plusDays(1)).block());
+        System.out.println("EXCL " + taskRepository.findNextQueuedExcluding(java.util.List.of("u", "x")).block() + " SUM " + taskRepository.summarizeQueued().collectList().block());
+            var doomed = created.getTasks().get(0).getTaskId();
+        taskService.deleteTask(doomed, "u").block();
+        try { taskService.getTaskById(doomed, "u").block(); } catch (Exception e) { System.out.println("HIDDEN " + e.getMessage()); }
+        Thread.sleep(1500);
+        System.out.println("AFTER_DELETE task=" + taskRepository.findById(doomed).block() + " tasks=" + taskRepository.count().block() + " outputs=" + outputRepository.count().block());
+        var kept = created.getTasks().get(1).getTaskId();
+        System.out.println("DBRESULTS_OR_ARCH " + taskService.getTaskResults(kept, "u").collectList().block());
+        Thread.sleep(2500);
+        System.out.println("ARCHIVED " + taskRepository.findById(kept).block().getArchivedAt() + " inputs=" + inputRepository.findByTaskId(kept).count().block() + " outputs=" + outputRepository.findByTaskId(kept).count().block());
+        System.out.println("ARCHRESULTS " + taskService.getTaskResults(kept, "u").collectList().block());
+        System.out.println("TSTATS_ARCH " + taskService.getTaskStats(kept, "u").block());
+        System.out.println("BSTATS2 " + taskService.getBatchStats(created.getUploadBatchId(), "u").block());
+}
+}
@@ -1,26 +1,42 @@
 package com.example.springhttpclientdatajpademo.controller;
 
+import com.example.springhttpclientdatajpademo.dto.CreateTaskBatchResponse;
 import com.example.springhttpclientdatajpademo.dto.CreateTaskResponse;
+import com.example.springhttpclientdatajpademo.dto.EvaluationStats;
+import com.example.springhttpclientdatajpademo.dto.TaskProgressEvent;
+import com.example.springhttpclientdatajpademo.dto.UpdateTaskRequest;
+import com.example.springhttpclientdatajpademo.entity.ScoreHistogram;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.exception.InvalidTaskStatusException;
+import com.example.springhttpclientdatajpademo.service.JwtService;
+import com.example.springhttpclientdatajpademo.service.TaskRequestService;
 import com.example.springhttpclientdatajpademo.service.TaskService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(TaskController.class)
+@Import({TaskRequestService.class, JwtService.class})
 class TaskControllerTest {
 
     @Autowired
@@ -32,7 +48,7 @@ class TaskControllerTest {
     @Test
     void shouldReturnNotImplementedWhenExcelParsingNotImplemented() {
         // Given - Mock service to throw UnsupportedOperationException
-        when(taskService.createTasks(any(), anyString()))
+        when(taskService.createTasks(any(), anyString(), any()))
             .thenReturn(Mono.error(new UnsupportedOperationException("Excel parsing not yet implemented")));
 
         // When & Then - Call endpoint and expect NOT_IMPLEMENTED response
@@ -61,4 +77,184 @@ class TaskControllerTest {
             .exchange()
             .expectStatus().isBadRequest();
     }
-} 
\ No newline at end of file
+
+    @Test
+    void shouldCreateTasksFromEveryUploadedFile() {
+        // Given
+        UUID uploadBatchId = UUID.randomUUID();
+        when(taskService.createTaskBatch(any(), anyString(), eq(3))).thenAnswer(invocation -> {
+            Flux<FilePart> fileParts = invocation.getArgument(0);
+            return fileParts
+                .map(filePart -> CreateTaskBatchResponse.FileResult.builder()
+                    .filename(filePart.filename())
+                    .totalTasks(1)
+                    .build())
+                .collectList()
+                .map(files -> CreateTaskBatchResponse.builder()
+                    .uploadBatchId(uploadBatchId)
+                    .files(files)
+                    .totalFiles(files.size())
+                    .failedFiles(0)
+                    .totalTasks(files.size())
+                    .build());
+        });
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("files", new ClassPathResource("test-file.txt")).filename("first.xlsx");
+        builder.part("files", new ClassPathResource("test-file.txt")).filename("second.xlsx");
+
+        // When & Then
+        webTestClient
+            .post()
+            .uri("/rest/v1/tasks/batches?priority=3")
+            .header("Authorization", "Bearer test-token")
+            .contentType(MediaType.MULTIPART_FORM_DATA)
+            .body(BodyInserters.fromMultipartData(builder.build()))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody()
+            .jsonPath("$.uploadBatchId").isEqualTo(uploadBatchId.toString())
+            .jsonPath("$.files[0].filename").isEqualTo("first.xlsx")
+            .jsonPath("$.files[1].filename").isEqualTo("second.xlsx")
+            .jsonPath("$.totalTasks").isEqualTo(2);
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenEveryUploadedFileFailed() {
+        // Given
+        when(taskService.createTaskBatch(any(), anyString(), any())).thenReturn(Mono.just(CreateTaskBatchResponse.builder()
+            .uploadBatchId(UUID.randomUUID())
+            .files(List.of(CreateTaskBatchResponse.FileResult.builder()
+                .filename("notes.txt")
+                .errorCode("INVALID_REQUEST")
+                .errorMessage("Invalid Excel file format")
+                .build()))
+            .totalFiles(1)
+            .failedFiles(1)
+            .totalTasks(0)
+            .build()));
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("files", new ClassPathResource("test-file.txt")).filename("notes.txt");
+
+        // When & Then
+        webTestClient
+            .post()
+            .uri("/rest/v1/tasks/batches")
+            .header("Authorization", "Bearer test-token")
+            .contentType(MediaType.MULTIPART_FORM_DATA)
+            .body(BodyInserters.fromMultipartData(builder.build()))
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.files[0].errorCode").isEqualTo("INVALID_REQUEST");
+    }
+
+    @Test
+    void shouldStreamTaskProgressAsServerSentEvents() {
+        // Given
+        UUID taskId = UUID.randomUUID();
+        when(taskService.watchTask(eq(taskId), anyString())).thenReturn(Flux.just(
+            TaskProgressEvent.builder().taskId(taskId).status(TaskStatus.PROCESSING).processedRows(1).build(),
+            TaskProgressEvent.builder().taskId(taskId).status(TaskStatus.COMPLETED).processedRows(2).build()));
+
+        // When
+        Flux<TaskProgressEvent> events = webTestClient
+            .get()
+            .uri("/rest/v1/tasks/{id}/events", taskId)
+            .header("Authorization", "Bearer test-token")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(TaskProgressEvent.class)
+            .getResponseBody();
+
+        // Then
+        StepVerifier.create(events.map(TaskProgressEvent::getProcessedRows))
+            .expectNext(1, 2)
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldCancelTask() {
+        // Given
+        UUID taskId = UUID.randomUUID();
+        when(taskService.cancelTask(eq(taskId), anyString())).thenReturn(Mono.just(
+            Task.builder().id(taskId).taskStatus(TaskStatus.CANCELLED).build()));
+
+        // When & Then
+        webTestClient
+            .put()
+            .uri("/rest/v1/tasks/{id}", taskId)
+            .header("Authorization", "Bearer test-token")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UpdateTaskRequest(UpdateTaskRequest.ACTION_CANCEL))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.taskStatus").isEqualTo("cancelled");
+    }
+
+    @Test
+    void shouldRejectCancellingFinishedTask() {
+        // Given
+        UUID taskId = UUID.randomUUID();
+        when(taskService.cancelTask(eq(taskId), anyString())).thenReturn(Mono.error(
+            new InvalidTaskStatusException("Cannot cancel completed task", "Only queueing or processing tasks can be cancelled")));
+
+        // When & Then
+        webTestClient
+            .patch()
+            .uri("/rest/v1/tasks/{id}", taskId)
+            .header("Authorization", "Bearer test-token")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UpdateTaskRequest(UpdateTaskRequest.ACTION_CANCEL))
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.code").isEqualTo("INVALID_STATUS");
+    }
+
+    @Test
+    void shouldDeleteTask() {
+        // Given
+        UUID taskId = UUID.randomUUID();
+        when(taskService.deleteTask(eq(taskId), anyString())).thenReturn(Mono.empty());
+
+        // When & Then
+        webTestClient
+            .delete()
+            .uri("/rest/v1/tasks/{id}", taskId)
+            .header("Authorization", "Bearer test-token")
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    @Test
+    void shouldReturnTaskStats() {
+        // Given
+        UUID taskId = UUID.randomUUID();
+        ScoreHistogram answer = new ScoreHistogram();
+        answer.add(0.8);
+        answer.add(0.6);
+        when(taskService.getTaskStats(eq(taskId), anyString())).thenReturn(Mono.just(
+            EvaluationStats.builder()
+                .taskId(taskId)
+                .resultCount(2L)
+                .failedCount(0L)
+                .answerSimilarity(EvaluationStats.ScoreSummary.of(answer))
+                .citationSimilarity(EvaluationStats.ScoreSummary.of(new ScoreHistogram()))
+                .build()));
+
+        // When & Then
+        webTestClient
+            .get()
+            .uri("/rest/v1/tasks/{id}/stats", taskId)
+            .header("Authorization", "Bearer test-token")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.resultCount").isEqualTo(2)
+            .jsonPath("$.answerSimilarity.mean").isEqualTo(0.7)
+            .jsonPath("$.answerSimilarity.histogram[6]").isEqualTo(1)
+            .jsonPath("$.citationSimilarity.mean").doesNotExist();
+    }
+}
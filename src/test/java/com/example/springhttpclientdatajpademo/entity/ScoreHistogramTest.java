@@ -0,0 +1,92 @@
+package com.example.springhttpclientdatajpademo.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoreHistogramTest {
+
+    @Test
+    void percentile_IsExactWhenAllScoresAreEqual() {
+        for (double score : new double[] {0.0, 0.5, 1.0, 0.1234}) {
+            // Given
+            ScoreHistogram histogram = new ScoreHistogram();
+            for (int i = 0; i < 1000; i++) {
+                histogram.add(score);
+            }
+
+            // When & Then
+            assertThat(histogram.percentile(0.01)).isEqualTo(score);
+            assertThat(histogram.percentile(0.5)).isEqualTo(score);
+            assertThat(histogram.percentile(0.99)).isEqualTo(score);
+        }
+    }
+
+    @Test
+    void percentile_StaysWithinScoresOfItsBucket() {
+        // Given
+        ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(0.501);
+        histogram.add(0.502);
+        histogram.add(0.509);
+
+        // When & Then
+        assertThat(histogram.percentile(0.5)).isEqualTo(0.505);
+        ScoreHistogram low = new ScoreHistogram();
+        low.add(0.501);
+        low.add(0.503);
+        assertThat(low.percentile(0.5)).isEqualTo(0.503);
+    }
+
+    @Test
+    void merge_KeepsBoundsOfBothHistograms() {
+        // Given
+        ScoreHistogram left = new ScoreHistogram();
+        left.add(0.0);
+        ScoreHistogram right = new ScoreHistogram();
+        right.add(0.0);
+        right.add(0.002);
+
+        // When
+        left.merge(right);
+
+        // Then
+        assertThat(left.count()).isEqualTo(3);
+        assertThat(left.percentile(0.01)).isEqualTo(0.002);
+    }
+
+    @Test
+    void toByteArray_RoundTripsCountsAndBounds() {
+        // Given
+        ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(0.0);
+        histogram.add(0.5);
+        histogram.add(0.5);
+        histogram.add(1.0);
+
+        // When
+        ScoreHistogram decoded = ScoreHistogram.of(histogram.toByteArray(), histogram.sum());
+
+        // Then
+        assertThat(decoded.count()).isEqualTo(4);
+        assertThat(decoded.percentile(0.25)).isEqualTo(0.0);
+        assertThat(decoded.percentile(0.5)).isEqualTo(0.5);
+        assertThat(decoded.percentile(1.0)).isEqualTo(1.0);
+        assertThat(decoded.toByteArray()).isEqualTo(histogram.toByteArray());
+    }
+
+    @Test
+    void of_FallsBackToBucketEdgesForOldEncoding() {
+        // Given
+        ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(0.5);
+        byte[] countsOnly = new byte[ScoreHistogram.BUCKETS];
+        countsOnly[50] = 1;
+
+        // When
+        ScoreHistogram decoded = ScoreHistogram.of(countsOnly, 0.5);
+
+        // Then
+        assertThat(decoded.percentile(0.5)).isEqualTo(0.505);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.StorageProperties;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationInputRepository;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationOutputRepository;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ChatEvaluationProcessorTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ChatEvaluationInputRepository inputRepository;
+
+    @Mock
+    private ChatEvaluationOutputRepository outputRepository;
+
+    @Mock
+    private ChatApiClient chatApiClient;
+
+    @Mock
+    private EvaluationStatsService evaluationStatsService;
+
+    @Mock
+    private TestAutomationService testAutomationService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ChatEvaluationProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new ChatEvaluationProcessor(taskRepository, inputRepository, outputRepository, chatApiClient,
+            new InputStorageCodec(new StorageProperties()), new TaskProgressService(), evaluationStatsService, testAutomationService,
+            objectMapper);
+
+        when(taskRepository.incrementProcessedRows(any(UUID.class), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+        when(taskRepository.finish(any(UUID.class), anyString(), any(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+        when(outputRepository.save(any(ChatEvaluationOutput.class)))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(chatApiClient.similarity(anyString(), anyString())).thenReturn(Mono.just(0.87654));
+    }
+
+    @Test
+    void evaluateRow_StoresAnswerAndSimilarityScores() {
+        // Given
+        Task task = processingTask(2, 0);
+        when(chatApiClient.chat(anyString())).thenReturn(Mono.just(
+            new ChatApiClient.ChatAnswer("answer", List.of("HTTPS://a.example.com/"), null)));
+
+        // When & Then
+        StepVerifier.create(processor.evaluateRow(task, input(task, 1, "https://a.example.com", "https://b.example.com")))
+            .assertNext(output -> {
+                assertThat(output.getTaskId()).isEqualTo(task.getId());
+                assertThat(output.getInputId()).isEqualTo(1L);
+                assertThat(output.getApiAnswer()).isEqualTo("answer");
+                assertThat(output.getAnswerSimilarity()).isEqualTo(new BigDecimal("0.8765"));
+                assertThat(output.getCitationSimilarity()).isEqualTo(new BigDecimal("0.5000"));
+            })
+            .verifyComplete();
+        verify(outputRepository).save(any(ChatEvaluationOutput.class));
+        verify(evaluationStatsService).record(eq(task), any(ChatEvaluationOutput.class));
+    }
+
+    @Test
+    void evaluateRow_AsksTestRunRowsAsTestUser() {
+        // Given
+        Task task = processingTask(2, 0);
+        task.setTaskType(TaskType.TEST_AUTOMATION);
+        ChatEvaluationInput input = input(task, 1);
+        ChatEvaluationOutput answered = ChatEvaluationOutput.builder()
+            .taskId(task.getId())
+            .inputId(input.getId())
+            .apiAnswer("answer")
+            .build();
+        when(testAutomationService.ask(task, input)).thenReturn(Mono.just(answered));
+
+        // When & Then
+        StepVerifier.create(processor.evaluateRow(task, input))
+            .expectNext(answered)
+            .verifyComplete();
+        verify(chatApiClient, never()).chat(anyString());
+        verify(evaluationStatsService).record(task, answered);
+    }
+
+    @Test
+    void pendingRows_ReadsRowsWithoutResultAfterGivenRow() {
+        // Given
+        Task task = processingTask(3, 1);
+        when(inputRepository.findPending(task.getId(), 1, 50)).thenReturn(Flux.just(input(task, 2), input(task, 3)));
+
+        // When & Then
+        StepVerifier.create(processor.pendingRows(task, 1, 50).map(ChatEvaluationInput::getRowNumber))
+            .expectNext(2, 3)
+            .verifyComplete();
+    }
+
+    @Test
+    void recordProgress_IncrementsCounterInDatabase() {
+        // Given
+        Task task = processingTask(2, 1);
+
+        // When & Then
+        StepVerifier.create(processor.recordProgress(task))
+            .verifyComplete();
+        verify(taskRepository).incrementProcessedRows(eq(task.getId()), any(LocalDateTime.class));
+    }
+
+    @Test
+    void complete_MarksTaskCompleted() {
+        // Given
+        Task task = processingTask(2, 2);
+
+        // When & Then
+        StepVerifier.create(processor.complete(task))
+            .assertNext(finished -> {
+                assertThat(finished.getTaskStatus()).isEqualTo(TaskStatus.COMPLETED);
+                assertThat(finished.getCompletedAt()).isNotNull();
+            })
+            .verifyComplete();
+        verify(taskRepository).finish(eq(task.getId()), eq("completed"), isNull(), any(LocalDateTime.class));
+        verify(evaluationStatsService).taskFinished(task.getId());
+        verify(testAutomationService).taskFinished(task.getId());
+    }
+
+    @Test
+    void complete_KeepsCancellationMadeInTheMeantime() {
+        // Given
+        Task task = processingTask(2, 2);
+        when(taskRepository.finish(any(UUID.class), anyString(), any(), any(LocalDateTime.class))).thenReturn(Mono.just(0));
+
+        // When & Then
+        StepVerifier.create(processor.complete(task))
+            .verifyComplete();
+        assertThat(task.getTaskStatus()).isEqualTo(TaskStatus.PROCESSING);
+    }
+
+    @Test
+    void fail_RecordsFailingRow() {
+        // Given
+        Task task = processingTask(2, 1);
+
+        // When & Then
+        StepVerifier.create(processor.fail(task, 2, new IllegalStateException("chat unavailable")))
+            .assertNext(finished -> {
+                assertThat(finished.getTaskStatus()).isEqualTo(TaskStatus.FAILED);
+                assertThat(finished.getErrorMessage()).isEqualTo("Row 2 failed: chat unavailable");
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void citationSimilarity_IsShareOfGoldenCitationsReturned() {
+        assertThat(ChatEvaluationProcessor.citationSimilarity(
+            List.of("https://a.example.com", "https://b.example.com"), List.of("https://b.example.com/", "x")))
+            .isEqualTo(0.5);
+        assertThat(ChatEvaluationProcessor.citationSimilarity(List.of(), List.of())).isEqualTo(1.0);
+        assertThat(ChatEvaluationProcessor.citationSimilarity(List.of(), List.of("x"))).isEqualTo(0.0);
+    }
+
+    private Task processingTask(int rowCount, int processedRows) {
+        return Task.builder()
+            .id(UUID.randomUUID())
+            .userId("user-1")
+            .taskStatus(TaskStatus.PROCESSING)
+            .rowCount(rowCount)
+            .processedRows(processedRows)
+            .build();
+    }
+
+    private ChatEvaluationInput input(Task task, int rowNumber) {
+        return input(task, rowNumber, "https://c.example.com");
+    }
+
+    private ChatEvaluationInput input(Task task, int rowNumber, String... citations) {
+        return ChatEvaluationInput.builder()
+            .id((long) rowNumber)
+            .taskId(task.getId())
+            .rowNumber(rowNumber)
+            .question("Question " + rowNumber)
+            .goldenAnswer("Answer " + rowNumber)
+            .goldenCitations(objectMapper.valueToTree(citations))
+            .build();
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ChatEvaluationWorkerTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskQueueService taskQueueService;
+
+    @Mock
+    private ChatEvaluationProcessor processor;
+
+    private final TaskCancellationRegistry cancellationRegistry = new TaskCancellationRegistry();
+    private final Sinks.Many<UUID> queuedTasks = Sinks.many().multicast().directBestEffort();
+    private final List<Task> queue = new CopyOnWriteArrayList<>();
+    private final Map<UUID, List<ChatEvaluationInput>> rowsByTask = new ConcurrentHashMap<>();
+    private final List<Task> completed = new CopyOnWriteArrayList<>();
+    private final List<String> evaluatedBy = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private Duration rowLatency = Duration.ZERO;
+    private WorkerProperties workerProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatEvaluationWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        workerProperties = new WorkerProperties();
+        workerProperties.setFallbackPollInterval(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        worker = new ChatEvaluationWorker(taskRepository, taskQueueService, processor, cancellationRegistry,
+            workerProperties, meterRegistry);
+
+        when(taskQueueService.queuedTasks()).thenReturn(queuedTasks.asFlux());
+        when(taskQueueService.purgeOutbox()).thenReturn(Mono.just(0));
+        when(taskRepository.summarizeQueued()).thenReturn(Flux.empty());
+        when(taskRepository.findCancelledIn(any())).thenReturn(Flux.empty());
+
+        // In-memory stand-in for the tasks table and the evaluation calls
+        when(taskRepository.findNextQueued()).thenAnswer(invocation -> nextQueued(Set.of()));
+        when(taskRepository.findNextQueuedExcluding(any())).thenAnswer(invocation ->
+            nextQueued(invocation.getArgument(0)));
+        when(taskRepository.claim(any(UUID.class), any(LocalDateTime.class))).thenAnswer(invocation ->
+            Mono.fromSupplier(() -> queue.removeIf(task -> task.getId().equals(invocation.getArgument(0))) ? 1 : 0));
+        when(processor.pendingRows(any(Task.class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Task task = invocation.getArgument(0);
+            int after = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return Flux.fromIterable(rowsByTask.getOrDefault(task.getId(), List.of()))
+                .filter(row -> row.getRowNumber() > after)
+                .take(limit);
+        });
+        when(processor.evaluateRow(any(Task.class), any(ChatEvaluationInput.class))).thenAnswer(invocation -> {
+            Task task = invocation.getArgument(0);
+            return Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return Mono.delay(rowLatency);
+                })
+                .doOnNext(tick -> {
+                    inFlight.decrementAndGet();
+                    evaluatedBy.add(task.getUserId());
+                })
+                // A disposed call no longer occupies the chat platform
+                .doOnCancel(inFlight::decrementAndGet)
+                .thenReturn(new ChatEvaluationOutput());
+        });
+        when(processor.recordProgress(any(Task.class))).thenReturn(Mono.empty());
+        when(processor.complete(any(Task.class))).thenAnswer(invocation -> {
+            Task task = invocation.getArgument(0);
+            task.setTaskStatus(TaskStatus.COMPLETED);
+            completed.add(task);
+            return Mono.just(task);
+        });
+        when(processor.fail(any(Task.class), any(), any(Throwable.class))).thenAnswer(invocation -> {
+            Task task = invocation.getArgument(0);
+            task.setTaskStatus(TaskStatus.FAILED);
+            return Mono.just(task);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.stop();
+    }
+
+    @Test
+    void start_PicksUpQueuedTaskAsSoonAsItIsAnnounced() throws InterruptedException {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            return null;
+        }).when(processor).started(any(Task.class));
+        worker.start();
+        // Startup drain found nothing, the worker is now idle
+        verify(taskRepository, timeout(1000)).findNextQueued();
+
+        // When
+        Task task = enqueue("user-1", 5, 1);
+        long announced = System.nanoTime();
+        queuedTasks.tryEmitNext(task.getId());
+
+        // Then
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        long pickupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - announced);
+        assertThat(pickupMillis).isLessThan(100);
+        assertThat(task.getTaskStatus()).isIn(TaskStatus.PROCESSING, TaskStatus.COMPLETED);
+        verify(processor, timeout(1000)).complete(task);
+    }
+
+    @Test
+    void start_IssuesNoQueriesWhileIdle() {
+        // When
+        worker.start();
+
+        // Then
+        verify(taskRepository, after(700).times(1)).findNextQueued();
+        verify(taskRepository, never()).findCancelledIn(any());
+    }
+
+    @Test
+    void start_FallbackPollFindsTasksQueuedBeforeStartup() {
+        // Given
+        Task task = enqueue("user-1", 5, 3);
+
+        // When
+        worker.start();
+
+        // Then
+        verify(processor, timeout(1000)).complete(task);
+        assertThat(evaluatedBy).hasSize(3);
+    }
+
+    @Test
+    void start_ClaimsNextTaskWhenAnotherNodeWonTheRace() {
+        // Given
+        Task taken = enqueue("user-1", 5, 1);
+        Task next = enqueue("user-1", 5, 1);
+        // Another node claims the first task between our read and our update
+        when(taskRepository.claim(eq(taken.getId()), any(LocalDateTime.class))).thenAnswer(invocation ->
+            Mono.fromSupplier(() -> {
+                queue.remove(taken);
+                return 0;
+            }));
+        workerProperties.setMaxActiveTasks(1);
+
+        // When
+        worker.start();
+
+        // Then
+        verify(processor, timeout(1000)).complete(next);
+        verify(processor, never()).started(taken);
+    }
+
+    @Test
+    void start_LimitsClaimedTasksPerUser() {
+        // Given
+        workerProperties.setMaxActiveTasksPerUser(2);
+        rowLatency = Duration.ofSeconds(10);
+        IntStream.range(0, 5).forEach(i -> enqueue("heavy", 5, 10));
+        Task light = enqueue("light", 5, 10);
+
+        // When
+        worker.start();
+
+        // Then
+        verify(processor, timeout(1000)).started(light);
+        assertThat(worker.activeTasks()).isEqualTo(3);
+        assertThat(queue).hasSize(3).allMatch(task -> task.getUserId().equals("heavy"));
+    }
+
+    @Test
+    void start_MarksTaskFailedWhenRowCannotBeEvaluated() {
+        // Given
+        Task task = enqueue("user-1", 5, 3);
+        when(processor.evaluateRow(eq(task), any(ChatEvaluationInput.class)))
+            .thenReturn(Mono.error(new IllegalStateException("chat unavailable")));
+
+        // When
+        worker.start();
+
+        // Then
+        verify(processor, timeout(1000)).fail(eq(task), eq(1), any(IllegalStateException.class));
+        verify(processor, after(200).never()).complete(task);
+    }
+
+    @Test
+    void start_InterleavesUsersAndKeepsEverySlotBusy() {
+        // Given
+        workerProperties.setConcurrency(8);
+        workerProperties.setRowBatchSize(20);
+        rowLatency = Duration.ofMillis(5);
+        workerProperties.setQueueMetricsInterval(Duration.ofHours(1));
+        // One user uploads four large sheets before another user uploads a small one
+        List<Task> heavy = IntStream.range(0, 4).mapToObj(i -> enqueue("heavy", 5, 200)).toList();
+        Task light = enqueue("light", 5, 20);
+        int totalRows = 4 * 200 + 20;
+
+        // When
+        long started = System.nanoTime();
+        worker.start();
+
+        // Then
+        verify(processor, timeout(10_000)).complete(light);
+        long heavyRowsBeforeLight = evaluatedBy.stream().filter("heavy"::equals).count();
+        heavy.forEach(task -> verify(processor, timeout(10_000)).complete(task));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        // FIFO would finish 800 heavy rows first; fair sharing finishes the small task after about 40 rows
+        assertThat(heavyRowsBeforeLight).isLessThan(100);
+        assertThat(evaluatedBy).hasSize(totalRows);
+        assertThat(maxInFlight.get()).isEqualTo(8);
+        // 820 rows of 5ms on 8 slots take about 0.5s when every slot stays busy
+        long idealMillis = totalRows * rowLatency.toMillis() / 8;
+        assertThat(elapsedMillis).isLessThan(idealMillis * 4);
+        assertThat(meterRegistry.find("evaluation.row.wait").tag("user", "light").timer()).isNotNull();
+        assertThat(meterRegistry.find("evaluation.queue.wait").tag("user", "heavy").timer().count()).isEqualTo(4);
+        assertThat(meterRegistry.find("evaluation.queue.depth").tag("user", "light").gauge().value()).isZero();
+        // Every claim and completion changed the queue, the summary query still ran once per interval
+        verify(taskRepository, times(1)).summarizeQueued();
+    }
+
+    @Test
+    void cancel_DisposesInFlightCallsOfLargeTaskWithinOneSecond() {
+        // Given
+        workerProperties.setConcurrency(8);
+        rowLatency = Duration.ofSeconds(30);
+        Task task = enqueue("user-1", 5, 10_000);
+        worker.start();
+        verify(processor, timeout(1000).times(8)).evaluateRow(eq(task), any(ChatEvaluationInput.class));
+        assertThat(inFlight.get()).isEqualTo(8);
+
+        // When
+        long cancelled = System.nanoTime();
+        assertThat(cancellationRegistry.cancel(task.getId())).isTrue();
+
+        // Then
+        verify(processor, timeout(1000)).cancelled(task);
+        assertThat(inFlight.get()).isZero();
+        assertThat(worker.runningRows()).isZero();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cancelled)).isLessThan(1000);
+        // No further rows are started and the task is neither completed nor failed
+        verify(processor, after(300).times(8)).evaluateRow(eq(task), any(ChatEvaluationInput.class));
+        verify(processor, never()).complete(task);
+        verify(processor, never()).fail(eq(task), any(), any(Throwable.class));
+        assertThat(worker.activeTasks()).isZero();
+        assertThat(cancellationRegistry.runningTasks()).isEmpty();
+    }
+
+    @Test
+    void cancel_PicksUpCancellationMadeOnAnotherNode() {
+        // Given
+        workerProperties.setCancellationPollInterval(Duration.ofMillis(100));
+        rowLatency = Duration.ofSeconds(30);
+        Task task = enqueue("user-1", 5, 10_000);
+        worker.start();
+        verify(processor, timeout(1000).atLeastOnce()).evaluateRow(eq(task), any(ChatEvaluationInput.class));
+
+        // When
+        when(taskRepository.findCancelledIn(any())).thenReturn(Flux.just(task.getId()));
+
+        // Then
+        verify(processor, timeout(1000)).cancelled(task);
+        // The poll thread disposes the rows right after recording the cancellation
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(inFlight.get()).isZero();
+        assertThat(worker.activeTasks()).isZero();
+    }
+
+    @Test
+    void cancel_OtherTasksKeepRunning() {
+        // Given
+        rowLatency = Duration.ofMillis(50);
+        Task cancelled = enqueue("user-1", 5, 10_000);
+        Task other = enqueue("user-2", 5, 5);
+        worker.start();
+        verify(processor, timeout(1000).atLeastOnce()).evaluateRow(eq(cancelled), any(ChatEvaluationInput.class));
+
+        // When
+        cancellationRegistry.cancel(cancelled.getId());
+
+        // Then
+        verify(processor, timeout(2000)).complete(other);
+        verify(processor, never()).complete(cancelled);
+    }
+
+    private Task enqueue(String userId, int priority, int rowCount) {
+        Task task = Task.builder()
+            .id(UUID.randomUUID())
+            .userId(userId)
+            .priority(priority)
+            .taskStatus(TaskStatus.QUEUEING)
+            .rowCount(rowCount)
+            .processedRows(0)
+            .createdAt(LocalDateTime.now())
+            .build();
+        List<ChatEvaluationInput> rows = new ArrayList<>();
+        for (int row = 1; row <= rowCount; row++) {
+            rows.add(ChatEvaluationInput.builder().id((long) row).taskId(task.getId()).rowNumber(row).build());
+        }
+        rowsByTask.put(task.getId(), rows);
+        queue.add(task);
+        return task;
+    }
+
+    private Mono<Task> nextQueued(Collection<String> excludedUsers) {
+        return Mono.fromSupplier(() -> queue.stream()
+            .filter(task -> !excludedUsers.contains(task.getUserId()))
+            .findFirst()
+            .orElse(null));
+    }
+}
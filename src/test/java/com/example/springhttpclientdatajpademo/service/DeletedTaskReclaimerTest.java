@@ -0,0 +1,169 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.DeletionProperties;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationInputRepository;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationOutputRepository;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DeletedTaskReclaimerTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ChatEvaluationInputRepository inputRepository;
+
+    @Mock
+    private ChatEvaluationOutputRepository outputRepository;
+
+    @Mock
+    private TaskArchiveStore archiveStore;
+
+    private final List<Long> inputIds = new CopyOnWriteArrayList<>();
+    private final List<Long> outputIds = new CopyOnWriteArrayList<>();
+    private final List<Integer> inputChunks = new ArrayList<>();
+    private final List<Integer> outputChunks = new ArrayList<>();
+    private DeletionProperties deletionProperties;
+    private DeletedTaskReclaimer reclaimer;
+
+    @BeforeEach
+    void setUp() {
+        deletionProperties = new DeletionProperties();
+        deletionProperties.setChunkSize(500);
+        deletionProperties.setChunkInterval(Duration.ofMillis(10));
+        reclaimer = new DeletedTaskReclaimer(taskRepository, inputRepository, outputRepository, archiveStore,
+            deletionProperties);
+
+        // In-memory stand-in for the child tables
+        when(outputRepository.findIdsByTaskId(any(UUID.class), anyInt())).thenAnswer(invocation ->
+            Flux.defer(() -> Flux.fromIterable(List.copyOf(outputIds)).take((int) invocation.getArgument(1))));
+        when(outputRepository.deleteByIds(any())).thenAnswer(invocation -> Mono.fromSupplier(() ->
+            remove(outputIds, outputChunks, invocation.getArgument(0))));
+        when(inputRepository.findIdsByTaskId(any(UUID.class), anyInt())).thenAnswer(invocation ->
+            Flux.defer(() -> Flux.fromIterable(List.copyOf(inputIds)).take((int) invocation.getArgument(1))));
+        when(inputRepository.deleteByIds(any())).thenAnswer(invocation -> Mono.fromSupplier(() ->
+            remove(inputIds, inputChunks, invocation.getArgument(0))));
+        when(taskRepository.deleteById(any(UUID.class))).thenReturn(Mono.empty());
+        when(archiveStore.delete(any(UUID.class))).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void reclaimDeleted_RemovesRowsInBoundedChunks() {
+        // Given
+        Task task = deletedTask(1200);
+        when(taskRepository.findDeleted(anyInt())).thenReturn(Flux.just(task));
+        LongStream.rangeClosed(1, 1200).forEach(inputIds::add);
+        LongStream.rangeClosed(1, 700).forEach(outputIds::add);
+
+        // When & Then
+        StepVerifier.create(reclaimer.reclaimDeleted())
+            .verifyComplete();
+        assertThat(outputChunks).containsExactly(500, 200);
+        assertThat(inputChunks).containsExactly(500, 500, 200);
+        assertThat(inputIds).isEmpty();
+        assertThat(outputIds).isEmpty();
+
+        // Results before inputs, the tasks row last
+        InOrder order = inOrder(outputRepository, inputRepository, taskRepository);
+        order.verify(outputRepository).deleteByIds(any());
+        order.verify(inputRepository).deleteByIds(any());
+        order.verify(taskRepository).deleteById(eq(task.getId()));
+    }
+
+    @Test
+    void reclaimDeleted_PausesBetweenChunks() {
+        // Given
+        deletionProperties.setChunkSize(100);
+        deletionProperties.setChunkInterval(Duration.ofMillis(50));
+        when(taskRepository.findDeleted(anyInt())).thenReturn(Flux.just(deletedTask(500)));
+        LongStream.rangeClosed(1, 500).forEach(inputIds::add);
+
+        // When
+        long started = System.nanoTime();
+        reclaimer.reclaimDeleted().block(Duration.ofSeconds(5));
+
+        // Then
+        assertThat(inputChunks).hasSize(5);
+        // Five full chunks means five pauses before the final empty read
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(250));
+    }
+
+    @Test
+    void reclaimDeleted_DeletesTaskWithoutRows() {
+        // Given
+        Task task = deletedTask(0);
+        when(taskRepository.findDeleted(anyInt())).thenReturn(Flux.just(task));
+
+        // When & Then
+        StepVerifier.create(reclaimer.reclaimDeleted())
+            .verifyComplete();
+        assertThat(inputChunks).isEmpty();
+        InOrder order = inOrder(taskRepository);
+        order.verify(taskRepository).deleteById(task.getId());
+        verify(archiveStore, never()).delete(any(UUID.class));
+    }
+
+    @Test
+    void reclaimDeleted_RemovesArchiveFileOfArchivedTask() {
+        // Given
+        Task task = deletedTask(10);
+        task.setArchivedAt(LocalDateTime.now().minusDays(1));
+        when(taskRepository.findDeleted(anyInt())).thenReturn(Flux.just(task));
+
+        // When & Then
+        StepVerifier.create(reclaimer.reclaimDeleted())
+            .verifyComplete();
+        InOrder order = inOrder(archiveStore, taskRepository);
+        order.verify(archiveStore).delete(task.getId());
+        order.verify(taskRepository).deleteById(task.getId());
+    }
+
+    private static int remove(List<Long> table, List<Integer> chunks, Collection<Long> ids) {
+        table.removeAll(ids);
+        chunks.add(ids.size());
+        return ids.size();
+    }
+
+    private static Task deletedTask(int rowCount) {
+        return Task.builder()
+            .id(UUID.randomUUID())
+            .userId("user-1")
+            .taskStatus(TaskStatus.COMPLETED)
+            .rowCount(rowCount)
+            .deletedAt(LocalDateTime.now())
+            .build();
+    }
+}
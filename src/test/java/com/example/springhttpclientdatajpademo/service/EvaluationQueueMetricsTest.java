@@ -0,0 +1,69 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.dto.UserQueueSummary;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EvaluationQueueMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private FairScheduler scheduler;
+    private EvaluationQueueMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        scheduler = new FairScheduler(userId -> 1);
+        metrics = new EvaluationQueueMetrics(registry, scheduler);
+    }
+
+    @Test
+    void queuedWork_RemovesDepthGaugeOnceUserQueueDrains() {
+        // Given
+        metrics.queuedWork(List.of(new UserQueueSummary("user-1", 1L, 40L), new UserQueueSummary("user-2", 2L, 7L)));
+        assertThat(depth("user-1")).isEqualTo(40.0);
+
+        // When - user-1's task is claimed, then finishes
+        FairScheduler.ActiveTask claimed = scheduler.add(task("user-1", 40));
+        metrics.taskClaimed(claimed.task());
+        metrics.queuedWork(List.of(new UserQueueSummary("user-2", 2L, 7L)));
+
+        // Then - still counted while it runs
+        assertThat(depth("user-1")).isEqualTo(40.0);
+
+        scheduler.remove(claimed);
+        metrics.queuedWork(List.of(new UserQueueSummary("user-2", 2L, 7L)));
+        assertThat(registry.find("evaluation.queue.depth").tag("user", "user-1").gauge()).isNull();
+        assertThat(depth("user-2")).isEqualTo(7.0);
+
+        // A user coming back gets the gauge again
+        metrics.queuedWork(List.of(new UserQueueSummary("user-1", 1L, 3L)));
+        assertThat(depth("user-1")).isEqualTo(3.0);
+        assertThat(registry.find("evaluation.queue.depth").gauges()).hasSize(1);
+    }
+
+    private double depth(String userId) {
+        return registry.find("evaluation.queue.depth").tag("user", userId).gauge().value();
+    }
+
+    private static Task task(String userId, int rowCount) {
+        return Task.builder()
+            .id(UUID.randomUUID())
+            .userId(userId)
+            .taskStatus(TaskStatus.PROCESSING)
+            .rowCount(rowCount)
+            .processedRows(0)
+            .priority(5)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+}
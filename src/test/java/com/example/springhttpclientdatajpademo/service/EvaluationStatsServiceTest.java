@@ -0,0 +1,218 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.ScoreHistogram;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.entity.TaskEvaluationStats;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.repository.TaskEvaluationStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class EvaluationStatsServiceTest {
+
+    @Mock
+    private TaskEvaluationStatsRepository statsRepository;
+
+    @Mock
+    private R2dbcEntityTemplate entityTemplate;
+
+    private final Map<UUID, TaskEvaluationStats> rows = new ConcurrentHashMap<>();
+    private EvaluationStatsService statsService;
+
+    @BeforeEach
+    void setUp() {
+        statsService = new EvaluationStatsService(statsRepository, entityTemplate, new WorkerProperties());
+
+        // In-memory task_evaluation_stats table
+        when(statsRepository.findById(any(UUID.class)))
+            .thenAnswer(invocation -> Mono.justOrEmpty(rows.get(invocation.<UUID>getArgument(0))));
+        when(statsRepository.findByUploadBatchId(any(UUID.class)))
+            .thenAnswer(invocation -> Flux.fromIterable(rows.values())
+                .filter(stats -> stats.getUploadBatchId().equals(invocation.getArgument(0))));
+        when(entityTemplate.insert(any(TaskEvaluationStats.class))).thenAnswer(invocation -> save(invocation.getArgument(0)));
+        when(entityTemplate.update(any(TaskEvaluationStats.class))).thenAnswer(invocation -> save(invocation.getArgument(0)));
+    }
+
+    @Test
+    void taskStats_CombinesStoredAndUnflushedResults() {
+        // Given
+        Task task = task(UUID.randomUUID());
+        for (int i = 1; i <= 100; i++) {
+            statsService.record(task, output(i / 100.0, 1.0));
+        }
+        StepVerifier.create(statsService.flush(task.getId())).verifyComplete();
+        statsService.record(task, output(0.0, 0.0));
+
+        // When & Then
+        StepVerifier.create(statsService.taskStats(task))
+            .assertNext(stats -> {
+                assertThat(stats.getTaskId()).isEqualTo(task.getId());
+                assertThat(stats.getResultCount()).isEqualTo(101);
+                assertThat(stats.getAnswerSimilarity().getMean()).isEqualTo(0.5);
+                assertThat(stats.getAnswerSimilarity().getP50()).isEqualTo(0.5);
+                assertThat(stats.getAnswerSimilarity().getP99()).isEqualTo(0.99);
+                assertThat(stats.getAnswerSimilarity().getHistogram())
+                    .containsExactly(10L, 10L, 10L, 10L, 10L, 10L, 10L, 10L, 10L, 11L);
+                assertThat(stats.getCitationSimilarity().getP50()).isEqualTo(1.0);
+            })
+            .verifyComplete();
+        assertThat(rows.get(task.getId()).getResultCount()).isEqualTo(100);
+    }
+
+    @Test
+    void flush_MergesIntoExistingRowAndForgetsFinishedTask() {
+        // Given
+        Task task = task(UUID.randomUUID());
+        statsService.record(task, output(0.2, 0.4));
+        StepVerifier.create(statsService.flush(task.getId())).verifyComplete();
+        statsService.record(task, output(0.6, 0.8));
+        statsService.taskFinished(task.getId());
+
+        // When
+        StepVerifier.create(statsService.flush(task.getId())).verifyComplete();
+
+        // Then
+        TaskEvaluationStats stats = rows.get(task.getId());
+        assertThat(stats.getResultCount()).isEqualTo(2);
+        assertThat(stats.getAnswerSimilaritySum()).isEqualTo(0.8, offset(1e-9));
+        assertThat(ScoreHistogram.of(stats.getCitationSimilarityHistogram(), stats.getCitationSimilaritySum()).count())
+            .isEqualTo(2);
+        verify(entityTemplate).insert(any(TaskEvaluationStats.class));
+        verify(entityTemplate).update(any(TaskEvaluationStats.class));
+
+        // Nothing is left to flush once the finished task was written
+        StepVerifier.create(statsService.flush(task.getId())).verifyComplete();
+        verify(statsRepository, times(2)).findById(task.getId());
+    }
+
+    @Test
+    void flush_KeepsResultsWhenWriteFails() {
+        // Given
+        Task task = task(UUID.randomUUID());
+        statsService.record(task, output(0.5, 0.5));
+        when(entityTemplate.insert(any(TaskEvaluationStats.class)))
+            .thenReturn(Mono.error(new RuntimeException("db down")))
+            .thenAnswer(invocation -> save(invocation.getArgument(0)));
+
+        // When
+        StepVerifier.create(statsService.flush(task.getId())).verifyError();
+        StepVerifier.create(statsService.flush(task.getId())).verifyComplete();
+
+        // Then
+        assertThat(rows.get(task.getId()).getResultCount()).isEqualTo(1);
+        StepVerifier.create(statsService.taskStats(task))
+            .assertNext(stats -> assertThat(stats.getResultCount()).isEqualTo(1))
+            .verifyComplete();
+    }
+
+    @Test
+    void batchStats_MergesStatisticsOfGivenTasksOnly() {
+        // Given
+        UUID uploadBatchId = UUID.randomUUID();
+        Task first = task(uploadBatchId);
+        Task second = task(uploadBatchId);
+        Task deleted = task(uploadBatchId);
+        statsService.record(first, output(0.1, 0.1));
+        statsService.record(second, output(0.9, 0.9));
+        statsService.record(deleted, output(0.5, 0.5));
+        StepVerifier.create(statsService.flush(first.getId())).verifyComplete();
+        StepVerifier.create(statsService.flush(deleted.getId())).verifyComplete();
+
+        // When & Then
+        StepVerifier.create(statsService.batchStats(uploadBatchId, List.of(first, second)))
+            .assertNext(stats -> {
+                assertThat(stats.getTaskId()).isNull();
+                assertThat(stats.getUploadBatchId()).isEqualTo(uploadBatchId);
+                assertThat(stats.getResultCount()).isEqualTo(2);
+                assertThat(stats.getAnswerSimilarity().getMean()).isEqualTo(0.5);
+                assertThat(stats.getAnswerSimilarity().getHistogram().get(1)).isEqualTo(1L);
+                assertThat(stats.getAnswerSimilarity().getHistogram().get(9)).isEqualTo(1L);
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void taskStats_CountsFailuresAndProcessingTimeOfResultsWithoutScores() {
+        // Given
+        Task task = task(UUID.randomUUID());
+        statsService.record(task, ChatEvaluationOutput.builder().processingTimeMs(100).build());
+        StepVerifier.create(statsService.flush(task.getId())).verifyComplete();
+        statsService.record(task, ChatEvaluationOutput.builder().processingTimeMs(200).build());
+        statsService.record(task, ChatEvaluationOutput.builder().processingTimeMs(5).errorMessage("timeout").build());
+
+        // When & Then
+        StepVerifier.create(statsService.taskStats(task))
+            .assertNext(stats -> {
+                assertThat(stats.getResultCount()).isEqualTo(3);
+                assertThat(stats.getFailedCount()).isEqualTo(1);
+                assertThat(stats.getMeanProcessingTimeMs()).isEqualTo(150.0);
+                assertThat(stats.getAnswerSimilarity().getMean()).isNull();
+                assertThat(stats.getCitationSimilarity().getHistogram()).containsOnly(0L);
+            })
+            .verifyComplete();
+        assertThat(rows.get(task.getId()).getProcessingTimeMsSum()).isEqualTo(100);
+    }
+
+    @Test
+    void taskStats_IsEmptyBeforeFirstResult() {
+        // Given
+        Task task = task(UUID.randomUUID());
+
+        // When & Then
+        StepVerifier.create(statsService.taskStats(task))
+            .assertNext(stats -> {
+                assertThat(stats.getResultCount()).isZero();
+                assertThat(stats.getMeanProcessingTimeMs()).isNull();
+                assertThat(stats.getAnswerSimilarity().getMean()).isNull();
+                assertThat(stats.getAnswerSimilarity().getP90()).isNull();
+                assertThat(stats.getAnswerSimilarity().getHistogram()).containsOnly(0L);
+            })
+            .verifyComplete();
+    }
+
+    private Mono<TaskEvaluationStats> save(TaskEvaluationStats stats) {
+        rows.put(stats.getTaskId(), stats);
+        return Mono.just(stats);
+    }
+
+    private static Task task(UUID uploadBatchId) {
+        return Task.builder()
+            .id(UUID.randomUUID())
+            .uploadBatchId(uploadBatchId)
+            .taskStatus(TaskStatus.PROCESSING)
+            .build();
+    }
+
+    private static ChatEvaluationOutput output(double answerSimilarity, double citationSimilarity) {
+        return ChatEvaluationOutput.builder()
+            .answerSimilarity(BigDecimal.valueOf(answerSimilarity))
+            .citationSimilarity(BigDecimal.valueOf(citationSimilarity))
+            .build();
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ExcelProperties;
+import com.example.springhttpclientdatajpademo.config.FileProperties;
+import com.example.springhttpclientdatajpademo.dto.ParsedExcelData;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExcelParsingServiceTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    private ExcelProperties excelProperties;
+    private FileProperties fileProperties;
+    private ExcelParsingService excelParsingService;
+
+    @BeforeEach
+    void setUp() {
+        excelProperties = new ExcelProperties();
+        fileProperties = new FileProperties();
+        fileProperties.setSpoolDirectory(spoolDirectory);
+        excelParsingService = new ExcelParsingService(excelProperties, fileProperties, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        excelParsingService.shutdown();
+    }
+
+    @Test
+    void parseSheets_ParsesEverySheetInWorkbookOrder() throws IOException {
+        // Given
+        byte[] workbook = workbook(
+            new String[][] {
+                {"question", "golden_answer", "golden_citations", "category"},
+                {"What is AI?", "AI is artificial intelligence", "https://example.com/ai", "basics"},
+                {"What is ML?", "ML is machine learning", "[\"https://example.com/ml\"]", ""}
+            },
+            new String[][] {
+                {"name", "value"},
+                {"a", "b"}
+            },
+            new String[][] {
+                {"question", "golden_answer", "golden_citations"},
+                {"Q", "A", "https://a.example.com\nhttps://b.example.com"}
+            });
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook), "test.xlsx"))
+            .assertNext(sheet -> {
+                assertThat(sheet.getSheetName()).isEqualTo("Sheet0");
+                assertThat(sheet.getTaskType()).isEqualTo(TaskType.CHAT_EVALUATION);
+                assertThat(sheet.getRowCount()).isEqualTo(2);
+
+                ParsedExcelData.RowData first = sheet.getRows().get(0);
+                assertThat(first.getRowNumber()).isEqualTo(1);
+                assertThat(first.getQuestion()).isEqualTo("What is AI?");
+                assertThat(first.getGoldenCitations().get(0).asText()).isEqualTo("https://example.com/ai");
+                assertThat(first.getMetadata().get("category").asText()).isEqualTo("basics");
+
+                ParsedExcelData.RowData second = sheet.getRows().get(1);
+                assertThat(second.getGoldenCitations().get(0).asText()).isEqualTo("https://example.com/ml");
+                assertThat(second.getMetadata()).isNull();
+            })
+            .assertNext(sheet -> {
+                assertThat(sheet.getSheetName()).isEqualTo("Sheet1");
+                assertThat(sheet.getTaskType()).isNull();
+            })
+            .assertNext(sheet -> {
+                assertThat(sheet.getSheetName()).isEqualTo("Sheet2");
+                assertThat(sheet.getRows().get(0).getGoldenCitations()).hasSize(2);
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void parseSheets_SequentialModeKeepsWorkbookOrder() throws IOException {
+        // Given
+        excelProperties.setParallelSheets(false);
+        String[][] sheet = {
+            {"question", "golden_answer", "golden_citations"},
+            {"Q", "A", "https://example.com"}
+        };
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook(sheet, sheet, sheet)), "test.xlsx")
+                .map(ParsedExcelData.SheetData::getSheetName))
+            .expectNext("Sheet0", "Sheet1", "Sheet2")
+            .verifyComplete();
+    }
+
+    @Test
+    void parseSheets_TooManySheets() throws IOException {
+        // Given
+        excelProperties.setMaxSheets(1);
+        String[][] sheet = {{"question", "golden_answer", "golden_citations"}};
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook(sheet, sheet)), "test.xlsx"))
+            .expectErrorMatches(throwable ->
+                throwable instanceof IllegalArgumentException &&
+                throwable.getMessage().contains("maximum is 1"))
+            .verify();
+    }
+
+    @Test
+    void parseSheets_TooManyRows() throws IOException {
+        // Given
+        excelProperties.setMaxRowsPerSheet(1);
+        String[][] sheet = {
+            {"question", "golden_answer", "golden_citations"},
+            {"Q1", "A1", "https://example.com"},
+            {"Q2", "A2", "https://example.com"}
+        };
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook(sheet)), "test.xlsx"))
+            .expectErrorMatches(throwable ->
+                throwable instanceof IllegalArgumentException &&
+                throwable.getMessage().contains("exceeds the maximum of 1 rows"))
+            .verify();
+    }
+
+    @Test
+    void parseSheets_RejectsIncompleteHeaderRow() throws IOException {
+        // Given
+        byte[] workbook = workbook(
+            new String[][] {
+                {"question", "golden_answer", "golden_citations"},
+                {"Q", "A", "https://example.com"}
+            },
+            new String[][] {
+                {"Question", "Golden_Answer", "citations"},
+                {"Q", "A", "https://example.com"}
+            });
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook), "test.xlsx"))
+            .expectErrorMatches(throwable ->
+                throwable instanceof IllegalArgumentException &&
+                throwable.getMessage().equals("Sheet 'Sheet1' is missing required column(s): golden_citations"))
+            .verify();
+    }
+
+    @Test
+    void parseSheets_RejectsWorkbookWithoutTaskSheet() throws IOException {
+        // Given
+        byte[] workbook = workbook(new String[][] {
+            {"name", "value"},
+            {"a", "b"}
+        });
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook), "test.xlsx"))
+            .expectErrorMatches(throwable ->
+                throwable instanceof IllegalArgumentException &&
+                throwable.getMessage().contains("No sheet in test.xlsx contains the required columns"))
+            .verify();
+    }
+
+    @Test
+    void parseSheets_RejectsXlsWorkbookWithoutTaskSheet() throws IOException {
+        // Given
+        byte[] workbook = write(new HSSFWorkbook(), new String[][] {
+            {"name", "value"},
+            {"a", "b"}
+        });
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook), "test.xls"))
+            .expectErrorMatches(throwable ->
+                throwable instanceof IllegalArgumentException &&
+                throwable.getMessage().contains("No sheet in test.xls contains the required columns"))
+            .verify();
+    }
+
+    @Test
+    void parseSheets_SkipsBlankRowsBeforeHeader() throws IOException {
+        // Given - whitespace-only cells are stored as shared strings
+        byte[] workbook = workbook(new String[][] {
+            {" ", "  "},
+            {"question", "golden_answer", "golden_citations"},
+            {"Q", "A", "https://example.com"}
+        });
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook), "test.xlsx"))
+            .assertNext(sheet -> {
+                assertThat(sheet.getTaskType()).isEqualTo(TaskType.CHAT_EVALUATION);
+                assertThat(sheet.getRowCount()).isEqualTo(1);
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void parseSheets_RejectsInvalidSharedStringReferenceInHeader() throws IOException {
+        // Given - the first header cell points at shared string 0
+        byte[] workbook = workbook(new String[][] {
+            {"question", "golden_answer", "golden_citations"},
+            {"Q", "A", "https://example.com"}
+        });
+
+        for (String index : List.of("abc", "-1", "999")) {
+            byte[] corrupted = replaceInEntry(workbook, "xl/worksheets/sheet1.xml", "<v>0</v>", "<v>" + index + "</v>");
+
+            // When & Then
+            StepVerifier.create(excelParsingService.parseSheets(content(corrupted), "test.xlsx"))
+                .expectErrorMatches(throwable ->
+                    throwable instanceof IllegalArgumentException &&
+                    throwable.getMessage().contains("shared string"))
+                .verify();
+        }
+    }
+
+    @Test
+    void parseSheets_ReportsInvalidRowsWithoutFailing() throws IOException {
+        // Given
+        excelProperties.setMaxReportedRowErrors(1);
+        byte[] workbook = workbook(new String[][] {
+            {"question", "golden_answer", "golden_citations"},
+            {"Q1", "", "https://example.com"},
+            {"Q2", "A2", "[\"https://example.com\""},
+            {"Q3", "A3", "https://example.com"}
+        });
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(content(workbook), "test.xlsx"))
+            .assertNext(sheet -> {
+                assertThat(sheet.getRowCount()).isEqualTo(1);
+                assertThat(sheet.getRows().get(0).getRowNumber()).isEqualTo(3);
+                assertThat(sheet.getRejectedRowCount()).isEqualTo(2);
+                assertThat(sheet.getRejectedRows()).hasSize(1);
+                assertThat(sheet.getRejectedRows().get(0).getRowNumber()).isEqualTo(1);
+                assertThat(sheet.getRejectedRows().get(0).getErrors()).containsExactly("golden_answer is required");
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void detectTaskType_MatchesRequiredColumnsIgnoringCase() {
+        StepVerifier.create(excelParsingService.detectTaskType(
+                List.of(" Question", "GOLDEN_ANSWER", "golden_citations", "notes")))
+            .expectNext(TaskType.CHAT_EVALUATION)
+            .verifyComplete();
+
+        StepVerifier.create(excelParsingService.detectTaskType(List.of("question", "golden_answer")))
+            .verifyComplete();
+    }
+
+    @Test
+    void validateExcelFile_ChecksExtensionAndSize() {
+        StepVerifier.create(excelParsingService.validateExcelFile("data.XLSX", 1024L))
+            .expectNext(true)
+            .verifyComplete();
+        StepVerifier.create(excelParsingService.validateExcelFile("data.csv", 1024L))
+            .expectNext(false)
+            .verifyComplete();
+        StepVerifier.create(excelParsingService.validateExcelFile("data.xlsx",
+                fileProperties.getMaxSize().toBytes() + 1))
+            .expectNext(false)
+            .verifyComplete();
+    }
+
+    @Test
+    void parseSheets_SpoolsUploadToDiskAndCleansUp() throws IOException {
+        // Given
+        byte[] workbook = workbook(new String[][] {
+            {"question", "golden_answer", "golden_citations"},
+            {"Q", "A", "https://example.com"}
+        });
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.filename()).thenReturn("test.xlsx");
+        when(filePart.content()).thenReturn(content(workbook));
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(filePart))
+            .assertNext(sheet -> assertThat(sheet.getRowCount()).isEqualTo(1))
+            .verifyComplete();
+        try (Stream<Path> spooled = Files.list(spoolDirectory)) {
+            assertThat(spooled).isEmpty();
+        }
+    }
+
+    @Test
+    void parseSheets_SpooledUploadIsDeletedOnError() throws IOException {
+        // Given - a zip package that is not a workbook
+        byte[] notAWorkbook = replaceInEntry(workbook(new String[][] {{"question"}}),
+            "[Content_Types].xml", "spreadsheetml", "wordprocessingml");
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.filename()).thenReturn("test.xlsx");
+        when(filePart.content()).thenReturn(content(notAWorkbook));
+
+        // When & Then
+        StepVerifier.create(excelParsingService.parseSheets(filePart))
+            .expectError()
+            .verify();
+        try (Stream<Path> spooled = Files.list(spoolDirectory)) {
+            assertThat(spooled).isEmpty();
+        }
+    }
+
+    @Test
+    void parseSheets_RejectsNonWorkbookOnFirstBuffer() {
+        // Given - a large upload whose first buffer is plain text
+        AtomicInteger buffersRead = new AtomicInteger();
+        Flux<DataBuffer> upload = Flux.concat(
+            content("not a workbook".getBytes(StandardCharsets.UTF_8)),
+            Flux.<DataBuffer>generate(sink -> {
+                buffersRead.incrementAndGet();
+                sink.next(DefaultDataBufferFactory.sharedInstance.wrap(new byte[8192]));
+            }).take(10_000));
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.filename()).thenReturn("test.xlsx");
+        when(filePart.content()).thenReturn(upload);
+
+        // When & Then
+        for (boolean spoolToDisk : List.of(true, false)) {
+            fileProperties.setSpoolToDisk(spoolToDisk);
+            StepVerifier.create(excelParsingService.parseSheets(filePart))
+                .expectErrorMessage("File is not a valid Excel workbook: test.xlsx")
+                .verify();
+        }
+        assertThat(buffersRead.get()).isZero();
+    }
+
+    static byte[] workbook(String[][]... sheets) throws IOException {
+        return write(new XSSFWorkbook(), sheets);
+    }
+
+    private static byte[] write(Workbook created, String[][]... sheets) throws IOException {
+        try (Workbook workbook = created; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int s = 0; s < sheets.length; s++) {
+                Sheet sheet = workbook.createSheet("Sheet" + s);
+                for (int r = 0; r < sheets[s].length; r++) {
+                    Row row = sheet.createRow(r);
+                    for (int c = 0; c < sheets[s][r].length; c++) {
+                        row.createCell(c).setCellValue(sheets[s][r][c]);
+                    }
+                }
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] replaceInEntry(byte[] xlsx, String entryName, String target, String replacement)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(xlsx));
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                byte[] data = in.readAllBytes();
+                if (entry.getName().equals(entryName)) {
+                    data = new String(data, StandardCharsets.UTF_8).replaceFirst(target, replacement)
+                        .getBytes(StandardCharsets.UTF_8);
+                }
+                zip.putNextEntry(new ZipEntry(entry.getName()));
+                zip.write(data);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static Flux<DataBuffer> content(byte[] bytes) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes));
+    }
+}
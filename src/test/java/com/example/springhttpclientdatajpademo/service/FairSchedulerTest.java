@@ -0,0 +1,170 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairSchedulerTest {
+
+    @Test
+    void next_SmallTaskIsNotStarvedByLargeBacklog() {
+        // Given
+        FairScheduler scheduler = new FairScheduler(userId -> 1);
+        for (int i = 0; i < 10; i++) {
+            addTask(scheduler, "heavy", 5, 1000);
+        }
+        FairScheduler.ActiveTask small = addTask(scheduler, "light", 5, 10);
+
+        // When
+        List<FairScheduler.RowWork> picks = drain(scheduler, 10_010);
+
+        // Then
+        int lastSmallPick = lastIndexOf(picks, small);
+        assertThat(lastSmallPick).isLessThan(20);
+        assertThat(picks).hasSize(10_010);
+    }
+
+    @Test
+    void next_SplitsUserShareByTaskPriority() {
+        // Given
+        FairScheduler scheduler = new FairScheduler(userId -> 1);
+        FairScheduler.ActiveTask urgent = addTask(scheduler, "user-1", 3, 1000);
+        FairScheduler.ActiveTask background = addTask(scheduler, "user-1", 1, 1000);
+
+        // When
+        Map<FairScheduler.ActiveTask, Integer> counts = countByTask(drain(scheduler, 400));
+
+        // Then
+        assertThat(counts.get(urgent)).isEqualTo(300);
+        assertThat(counts.get(background)).isEqualTo(100);
+    }
+
+    @Test
+    void next_SharesThroughputByUserWeight() {
+        // Given
+        FairScheduler scheduler = new FairScheduler(userId -> userId.equals("vip") ? 2 : 1);
+        FairScheduler.ActiveTask vip = addTask(scheduler, "vip", 5, 1000);
+        FairScheduler.ActiveTask first = addTask(scheduler, "regular", 5, 1000);
+        FairScheduler.ActiveTask second = addTask(scheduler, "regular", 5, 1000);
+
+        // When
+        Map<FairScheduler.ActiveTask, Integer> counts = countByTask(drain(scheduler, 300));
+
+        // Then
+        assertThat(counts.get(vip)).isEqualTo(200);
+        assertThat(counts.get(first) + counts.get(second)).isEqualTo(100);
+        assertThat(counts.get(first)).isEqualTo(counts.get(second));
+    }
+
+    @Test
+    void next_SkipsTasksWithoutBufferedRowsWithoutBankingTurns() {
+        // Given
+        FairScheduler scheduler = new FairScheduler(userId -> 1);
+        FairScheduler.ActiveTask waiting = scheduler.add(task("user-1", 5, 100));
+        FairScheduler.ActiveTask ready = addTask(scheduler, "user-2", 5, 100);
+
+        // When
+        List<FairScheduler.RowWork> beforeRows = drain(scheduler, 10);
+        scheduler.offerRows(waiting, rows(100), true);
+        List<FairScheduler.RowWork> afterRows = drain(scheduler, 10);
+
+        // Then
+        assertThat(beforeRows).allMatch(work -> work.task() == ready);
+        assertThat(countByTask(afterRows)).containsEntry(waiting, 5).containsEntry(ready, 5);
+    }
+
+    @Test
+    void rowFinished_RequestsMoreRowsAndReportsCompletion() {
+        // Given
+        FairScheduler scheduler = new FairScheduler(userId -> 1);
+        FairScheduler.ActiveTask active = scheduler.add(task("user-1", 5, 4));
+        scheduler.offerRows(active, rows(2), false);
+
+        // When & Then
+        FairScheduler.RowWork first = scheduler.next();
+        assertThat(scheduler.rowFinished(first.task(), 2)).isEqualTo(FairScheduler.RowOutcome.FETCH_ROWS);
+        assertThat(scheduler.claimFetch(active, 2)).isFalse();
+
+        scheduler.offerRows(active, List.of(input(3), input(4)), true);
+        assertThat(scheduler.lastRowNumber(active)).isEqualTo(4);
+        drain(scheduler, 3).forEach(work -> scheduler.rowFinished(work.task(), 2));
+        assertThat(scheduler.isDone(active)).isTrue();
+        assertThat(active.task().getProcessedRows()).isEqualTo(4);
+    }
+
+    @Test
+    void usersAtLimit_ListsUsersWithMaximumClaimedTasks() {
+        // Given
+        FairScheduler scheduler = new FairScheduler(userId -> 1);
+        addTask(scheduler, "heavy", 5, 10);
+        addTask(scheduler, "heavy", 5, 10);
+        FairScheduler.ActiveTask light = addTask(scheduler, "light", 5, 10);
+
+        // When & Then
+        assertThat(scheduler.usersAtLimit(2)).containsExactly("heavy");
+        assertThat(scheduler.remainingRows("light")).isEqualTo(10);
+        scheduler.remove(light);
+        assertThat(scheduler.activeTaskCount()).isEqualTo(2);
+        assertThat(scheduler.remainingRows("light")).isZero();
+    }
+
+    private FairScheduler.ActiveTask addTask(FairScheduler scheduler, String userId, int priority, int rowCount) {
+        FairScheduler.ActiveTask active = scheduler.add(task(userId, priority, rowCount));
+        scheduler.offerRows(active, rows(rowCount), true);
+        return active;
+    }
+
+    private static List<FairScheduler.RowWork> drain(FairScheduler scheduler, int maxPicks) {
+        List<FairScheduler.RowWork> picks = new ArrayList<>();
+        FairScheduler.RowWork work;
+        while (picks.size() < maxPicks && (work = scheduler.next()) != null) {
+            picks.add(work);
+        }
+        return picks;
+    }
+
+    private static int lastIndexOf(List<FairScheduler.RowWork> picks, FairScheduler.ActiveTask task) {
+        return IntStream.range(0, picks.size())
+            .filter(i -> picks.get(i).task() == task)
+            .max()
+            .orElse(-1);
+    }
+
+    private static Map<FairScheduler.ActiveTask, Integer> countByTask(List<FairScheduler.RowWork> picks) {
+        Map<FairScheduler.ActiveTask, Integer> counts = new HashMap<>();
+        picks.forEach(work -> counts.merge(work.task(), 1, Integer::sum));
+        return counts;
+    }
+
+    private static Task task(String userId, int priority, int rowCount) {
+        return Task.builder()
+            .id(UUID.randomUUID())
+            .userId(userId)
+            .priority(priority)
+            .rowCount(rowCount)
+            .processedRows(0)
+            .build();
+    }
+
+    private static List<ChatEvaluationInput> rows(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(FairSchedulerTest::input).toList();
+    }
+
+    private static ChatEvaluationInput input(int rowNumber) {
+        return ChatEvaluationInput.builder()
+            .id((long) rowNumber)
+            .rowNumber(rowNumber)
+            .question("Question " + rowNumber)
+            .goldenAnswer("Answer " + rowNumber)
+            .build();
+    }
+}
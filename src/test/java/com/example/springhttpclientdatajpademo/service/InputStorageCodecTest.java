@@ -0,0 +1,142 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.StorageProperties;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.enums.InputStorageFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class InputStorageCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StorageProperties storageProperties;
+    private InputStorageCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties();
+        codec = new InputStorageCodec(storageProperties);
+    }
+
+    @Test
+    void encode_JsonFormatKeepsJsonColumns() {
+        // Given
+        JsonNode citations = citations("https://example.com/a");
+
+        // When
+        ChatEvaluationInput input = codec.encode(ChatEvaluationInput.builder(), citations, null).build();
+
+        // Then
+        assertThat(input.getGoldenCitations()).isEqualTo(citations);
+        assertThat(input.getGoldenCitationsPacked()).isNull();
+        assertThat(codec.citations(input)).containsExactly("https://example.com/a");
+    }
+
+    @Test
+    void encode_CompactFormatRoundTripsCitationsAndMetadata() {
+        // Given
+        storageProperties.setInputFormat(InputStorageFormat.COMPACT);
+        JsonNode citations = citations("https://docs.example.com/guide/ä", "https://docs.example.com/guide/b", "");
+        ObjectNode metadata = objectMapper.createObjectNode().put("category", "basics").put("owner", "team-a");
+
+        // When
+        ChatEvaluationInput input = codec.encode(ChatEvaluationInput.builder(), citations, metadata).build();
+
+        // Then
+        assertThat(input.getGoldenCitations()).isNull();
+        assertThat(input.getMetadata()).isNull();
+        assertThat(codec.citations(input))
+            .containsExactly("https://docs.example.com/guide/ä", "https://docs.example.com/guide/b", "");
+        assertThat(codec.metadata(input)).isEqualTo(Map.of("category", "basics", "owner", "team-a"));
+    }
+
+    @Test
+    void encode_CompactFormatKeepsNestedMetadataAsJson() {
+        // Given
+        storageProperties.setInputFormat(InputStorageFormat.COMPACT);
+        ObjectNode metadata = objectMapper.createObjectNode();
+        metadata.putArray("tags").add("a");
+
+        // When
+        ChatEvaluationInput input = codec.encode(ChatEvaluationInput.builder(), citations(), metadata).build();
+
+        // Then
+        assertThat(input.getMetadataPacked()).isNull();
+        assertThat(input.getMetadata()).isEqualTo(metadata);
+        assertThat(codec.citations(input)).isEmpty();
+    }
+
+    @Test
+    void compactFormat_IsSmallerThanJson() throws Exception {
+        // Given - rows shaped like typical uploads: a few citations on shared hosts plus one metadata column
+        int rows = 1_000;
+        storageProperties.setInputFormat(InputStorageFormat.COMPACT);
+        List<byte[]> jsonCitations = new ArrayList<>(rows);
+        List<ChatEvaluationInput> compactRows = new ArrayList<>(rows);
+        long jsonBytes = 0;
+        long compactBytes = 0;
+
+        // When
+        for (int i = 0; i < rows; i++) {
+            JsonNode citations = citations(
+                "https://confluence.example.com/display/ENG/Page-" + i,
+                "https://confluence.example.com/display/ENG/Page-" + (i + 1),
+                "https://docs.example.com/handbook/section-" + (i % 50));
+            ObjectNode metadata = objectMapper.createObjectNode().put("category", "category-" + (i % 10));
+            byte[] json = objectMapper.writeValueAsBytes(citations);
+            jsonCitations.add(json);
+            jsonBytes += json.length + objectMapper.writeValueAsBytes(metadata).length;
+
+            ChatEvaluationInput input = codec.encode(ChatEvaluationInput.builder(), citations, metadata).build();
+            compactRows.add(input);
+            compactBytes += input.getGoldenCitationsPacked().toByteArray().length
+                + input.getMetadataPacked().toByteArray().length;
+        }
+
+        // Then - about 110 against 180 bytes per row
+        double jsonBytesPerRow = (double) jsonBytes / rows;
+        double compactBytesPerRow = (double) compactBytes / rows;
+        assertThat(compactBytesPerRow).isLessThan(0.7 * jsonBytesPerRow);
+        if (log.isDebugEnabled()) {
+            logDecodeTime(jsonCitations, compactRows, jsonBytesPerRow, compactBytesPerRow);
+        }
+    }
+
+    /**
+     * Decode timings are only informational, wall-clock numbers are too noisy on shared machines to assert on
+     */
+    private void logDecodeTime(List<byte[]> jsonCitations, List<ChatEvaluationInput> compactRows,
+                               double jsonBytesPerRow, double compactBytesPerRow) throws Exception {
+        long start = System.nanoTime();
+        for (byte[] json : jsonCitations) {
+            objectMapper.readTree(json).elements().forEachRemaining(JsonNode::asText);
+        }
+        long jsonDecodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        compactRows.forEach(codec::citations);
+        long compactDecodeNanos = System.nanoTime() - start;
+        log.debug("citations+metadata bytes/row: json={} compact={}; citation decode ns/row: json={} compact={}",
+            jsonBytesPerRow, compactBytesPerRow, jsonDecodeNanos / jsonCitations.size(),
+            compactDecodeNanos / compactRows.size());
+    }
+
+    private JsonNode citations(String... urls) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (String url : urls) {
+            array.add(url);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ArchiveProperties;
+import com.example.springhttpclientdatajpademo.dto.TaskResultRow;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TaskArchiverTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskResultReader resultReader;
+
+    @Mock
+    private DeletedTaskReclaimer deletedTaskReclaimer;
+
+    @TempDir
+    Path archiveDirectory;
+
+    private TaskArchiveStore archiveStore;
+    private TaskArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        ArchiveProperties archiveProperties = new ArchiveProperties();
+        archiveProperties.setDirectory(archiveDirectory);
+        archiveStore = new TaskArchiveStore(archiveProperties, new ObjectMapper().findAndRegisterModules());
+        archiver = new TaskArchiver(taskRepository, resultReader, archiveStore, deletedTaskReclaimer, archiveProperties);
+
+        when(taskRepository.markArchived(any(UUID.class), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+        when(taskRepository.findArchivedWithRows(anyInt())).thenReturn(Flux.empty());
+        when(deletedTaskReclaimer.deleteRows(any(UUID.class))).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void archiveCompleted_WritesFileThenMarksTaskAndRemovesRows() {
+        // Given
+        Task task = completedTask();
+        List<TaskResultRow> rows = rows(1200);
+        when(taskRepository.findArchivable(any(LocalDateTime.class), anyInt())).thenReturn(Flux.just(task));
+        when(resultReader.readFromDatabase(task.getId())).thenReturn(Flux.fromIterable(rows));
+
+        // When
+        StepVerifier.create(archiver.archiveCompleted())
+            .verifyComplete();
+
+        // Then
+        assertThat(archiveStore.path(task.getId())).exists();
+        StepVerifier.create(archiveStore.read(task.getId()).collectList())
+            .assertNext(archived -> assertThat(archived).isEqualTo(rows))
+            .verifyComplete();
+        InOrder order = inOrder(taskRepository, deletedTaskReclaimer);
+        order.verify(taskRepository).markArchived(eq(task.getId()), any(LocalDateTime.class));
+        order.verify(deletedTaskReclaimer).deleteRows(task.getId());
+    }
+
+    @Test
+    void archiveCompleted_DiscardsFileOfTaskDeletedMeanwhile() throws Exception {
+        // Given
+        Task task = completedTask();
+        when(taskRepository.findArchivable(any(LocalDateTime.class), anyInt())).thenReturn(Flux.just(task));
+        when(resultReader.readFromDatabase(task.getId())).thenReturn(Flux.fromIterable(rows(3)));
+        when(taskRepository.markArchived(eq(task.getId()), any(LocalDateTime.class))).thenReturn(Mono.just(0));
+
+        // When
+        StepVerifier.create(archiver.archiveCompleted())
+            .verifyComplete();
+
+        // Then
+        assertThat(archiveStore.path(task.getId())).doesNotExist();
+        verify(deletedTaskReclaimer, never()).deleteRows(any(UUID.class));
+        try (var files = Files.walk(archiveDirectory)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void archiveCompleted_LeavesRowsWhenFileCannotBeWritten() {
+        // Given
+        Task task = completedTask();
+        when(taskRepository.findArchivable(any(LocalDateTime.class), anyInt())).thenReturn(Flux.just(task));
+        when(resultReader.readFromDatabase(task.getId()))
+            .thenReturn(Flux.fromIterable(rows(2)).concatWith(Flux.error(new RuntimeException("connection lost"))));
+
+        // When & Then
+        StepVerifier.create(archiver.archiveCompleted())
+            .verifyError(RuntimeException.class);
+        assertThat(archiveStore.path(task.getId())).doesNotExist();
+        verify(taskRepository, never()).markArchived(any(UUID.class), any(LocalDateTime.class));
+        verify(deletedTaskReclaimer, never()).deleteRows(any(UUID.class));
+    }
+
+    @Test
+    void removeLeftoverRows_FinishesInterruptedArchival() {
+        // Given
+        Task task = completedTask();
+        task.setArchivedAt(LocalDateTime.now());
+        when(taskRepository.findArchivedWithRows(anyInt())).thenReturn(Flux.just(task));
+
+        // When & Then
+        StepVerifier.create(archiver.removeLeftoverRows())
+            .verifyComplete();
+        verify(deletedTaskReclaimer).deleteRows(task.getId());
+    }
+
+    private static Task completedTask() {
+        return Task.builder()
+            .id(UUID.randomUUID())
+            .userId("user-1")
+            .taskStatus(TaskStatus.COMPLETED)
+            .completedAt(LocalDateTime.now().minusDays(60))
+            .build();
+    }
+
+    private static List<TaskResultRow> rows(int count) {
+        return IntStream.rangeClosed(1, count)
+            .mapToObj(rowNumber -> TaskResultRow.builder()
+                .rowNumber(rowNumber)
+                .question("Question " + rowNumber)
+                .goldenAnswer("Answer " + rowNumber)
+                .goldenCitations(List.of("https://docs.example.com/" + rowNumber))
+                .metadata(Map.of("category", "billing"))
+                .apiAnswer("API answer " + rowNumber)
+                .answerSimilarity(new BigDecimal("0.8123"))
+                .citationSimilarity(new BigDecimal("1.0000"))
+                .processingTimeMs(120)
+                .evaluatedAt(LocalDateTime.of(2026, 1, 2, 3, 4, 5))
+                .build())
+            .toList();
+    }
+}
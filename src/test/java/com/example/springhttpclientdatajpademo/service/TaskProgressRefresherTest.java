@@ -0,0 +1,97 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.dto.TaskProgressEvent;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TaskProgressRefresherTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Captor
+    private ArgumentCaptor<Iterable<UUID>> readIds;
+
+    private final UUID uploadBatchId = UUID.randomUUID();
+    private final LocalDateTime start = LocalDateTime.now();
+    private final TaskProgressService taskProgressService = new TaskProgressService();
+    private TaskProgressRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        refresher = new TaskProgressRefresher(taskRepository, taskProgressService, new WorkerProperties());
+    }
+
+    @Test
+    void refresh_ReadsEveryWatchedTaskInOneQuery() {
+        // Given - three streams on two tasks processed by another node
+        Task first = task(TaskStatus.PROCESSING, 2, start);
+        Task second = task(TaskStatus.PROCESSING, 5, start);
+        when(taskRepository.findAllById(anyIterable())).thenReturn(Flux.just(
+            task(first.getId(), TaskStatus.COMPLETED, 10, start.plusSeconds(1)),
+            task(second.getId(), TaskStatus.PROCESSING, 7, start.plusSeconds(1))));
+
+        // When & Then
+        StepVerifier.create(Flux.merge(
+                    taskProgressService.taskEvents(first),
+                    taskProgressService.taskEvents(first),
+                    taskProgressService.batchEvents(uploadBatchId, List.of(first, second)))
+                .map(TaskProgressEvent::getProcessedRows))
+            .expectNext(2, 2, 2, 5)
+            .then(() -> refresher.refresh().block())
+            .expectNext(10, 10, 10, 7)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+        verify(taskRepository, times(1)).findAllById(readIds.capture());
+        assertThat(readIds.getValue()).containsExactlyInAnyOrder(first.getId(), second.getId());
+    }
+
+    @Test
+    void refresh_DoesNotReadWithoutWatchedTasks() {
+        // When & Then
+        StepVerifier.create(refresher.refresh()).verifyComplete();
+        verifyNoInteractions(taskRepository);
+    }
+
+    private Task task(TaskStatus status, int processedRows, LocalDateTime updatedAt) {
+        return task(UUID.randomUUID(), status, processedRows, updatedAt);
+    }
+
+    private Task task(UUID id, TaskStatus status, int processedRows, LocalDateTime updatedAt) {
+        return Task.builder()
+            .id(id)
+            .uploadBatchId(uploadBatchId)
+            .taskStatus(status)
+            .rowCount(10)
+            .processedRows(processedRows)
+            .updatedAt(updatedAt)
+            .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.dto.TaskProgressEvent;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskProgressServiceTest {
+
+    private final UUID uploadBatchId = UUID.randomUUID();
+    private TaskProgressService taskProgressService;
+
+    @BeforeEach
+    void setUp() {
+        taskProgressService = new TaskProgressService();
+    }
+
+    @Test
+    void taskEvents_LateSubscriberGetsCachedStateThenLiveUpdates() {
+        // Given - progress published before anyone subscribed
+        Task task = task(TaskStatus.PROCESSING, 0);
+        taskProgressService.publish(task(task.getId(), TaskStatus.PROCESSING, 5));
+
+        // When & Then - stale snapshot from the caller is replaced by the cached state
+        StepVerifier.create(taskProgressService.taskEvents(task).map(TaskProgressEvent::getProcessedRows))
+            .expectNext(5)
+            .then(() -> taskProgressService.publish(task(task.getId(), TaskStatus.PROCESSING, 8)))
+            .expectNext(8)
+            .then(() -> taskProgressService.publish(task(task.getId(), TaskStatus.COMPLETED, 10)))
+            .expectNext(10)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void taskEvents_FinishedTaskCompletesImmediately() {
+        Task task = task(TaskStatus.COMPLETED, 10);
+
+        StepVerifier.create(taskProgressService.taskEvents(task).map(TaskProgressEvent::getStatus))
+            .expectNext(TaskStatus.COMPLETED)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void batchEvents_CompletesWhenEveryTaskFinishes() {
+        // Given
+        Task first = task(TaskStatus.QUEUEING, 0);
+        Task second = task(TaskStatus.QUEUEING, 0);
+        Task otherBatch = Task.builder()
+            .id(UUID.randomUUID())
+            .uploadBatchId(UUID.randomUUID())
+            .taskStatus(TaskStatus.PROCESSING)
+            .rowCount(10)
+            .processedRows(1)
+            .build();
+
+        // When & Then
+        StepVerifier.create(taskProgressService.batchEvents(uploadBatchId, List.of(first, second))
+                .map(event -> event.getTaskId() + ":" + event.getStatus().getValue()))
+            .expectNext(first.getId() + ":queueing", second.getId() + ":queueing")
+            .then(() -> taskProgressService.publish(otherBatch))
+            .then(() -> taskProgressService.publish(task(first.getId(), TaskStatus.COMPLETED, 10)))
+            .expectNext(first.getId() + ":completed")
+            .then(() -> taskProgressService.publish(task(second.getId(), TaskStatus.FAILED, 3)))
+            .expectNext(second.getId() + ":failed")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void taskEvents_FollowsTaskProcessedOnAnotherNode() {
+        // Given - nothing is published on this node, only database snapshots arrive
+        LocalDateTime start = LocalDateTime.now();
+        Task task = task(TaskStatus.QUEUEING, 0);
+        task.setUpdatedAt(start);
+
+        // When & Then - unchanged snapshots are skipped, the terminal one completes the stream
+        StepVerifier.create(taskProgressService.taskEvents(task).map(TaskProgressEvent::getProcessedRows))
+            .expectNext(0)
+            .then(() -> taskProgressService.publishSnapshot(snapshot(task, TaskStatus.QUEUEING, 0, start)))
+            .then(() -> taskProgressService.publishSnapshot(snapshot(task, TaskStatus.PROCESSING, 4, start.plusSeconds(1))))
+            .expectNext(4)
+            .then(() -> taskProgressService.publishSnapshot(snapshot(task, TaskStatus.PROCESSING, 4, start.plusSeconds(1))))
+            .then(() -> taskProgressService.publishSnapshot(snapshot(task, TaskStatus.COMPLETED, 10, start.plusSeconds(2))))
+            .expectNext(10)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void batchEvents_SnapshotsDoNotOverrideNewerLiveUpdates() {
+        // Given
+        LocalDateTime start = LocalDateTime.now();
+        Task task = task(TaskStatus.PROCESSING, 0);
+        task.setUpdatedAt(start);
+
+        // When & Then
+        StepVerifier.create(taskProgressService.batchEvents(uploadBatchId, List.of(task))
+                .map(TaskProgressEvent::getProcessedRows))
+            .expectNext(0)
+            .then(() -> taskProgressService.publish(snapshot(task, TaskStatus.PROCESSING, 6, start.plusSeconds(2))))
+            .expectNext(6)
+            // Read from the database before the live update was written
+            .then(() -> taskProgressService.publishSnapshot(snapshot(task, TaskStatus.PROCESSING, 3, start.plusSeconds(1))))
+            .then(() -> taskProgressService.publishSnapshot(snapshot(task, TaskStatus.FAILED, 6, start.plusSeconds(3))))
+            .expectNext(6)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void watchedTasks_TracksTasksWithOpenStreams() {
+        // Given
+        Task first = task(TaskStatus.PROCESSING, 0);
+        Task second = task(TaskStatus.QUEUEING, 0);
+
+        // When
+        Disposable taskStream = taskProgressService.taskEvents(first).subscribe();
+        Disposable batchStream = taskProgressService.batchEvents(uploadBatchId, List.of(first, second)).subscribe();
+
+        // Then - one entry per task however many streams watch it, gone once no stream does
+        assertThat(taskProgressService.watchedTasks()).containsExactlyInAnyOrder(first.getId(), second.getId());
+        taskProgressService.publish(task(second.getId(), TaskStatus.COMPLETED, 10));
+        assertThat(taskProgressService.watchedTasks()).containsExactly(first.getId());
+        taskStream.dispose();
+        assertThat(taskProgressService.watchedTasks()).containsExactly(first.getId());
+        batchStream.dispose();
+        assertThat(taskProgressService.watchedTasks()).isEmpty();
+    }
+
+    private Task snapshot(Task task, TaskStatus status, int processedRows, LocalDateTime updatedAt) {
+        Task snapshot = task(task.getId(), status, processedRows);
+        snapshot.setUpdatedAt(updatedAt);
+        return snapshot;
+    }
+
+    private Task task(TaskStatus status, int processedRows) {
+        return task(UUID.randomUUID(), status, processedRows);
+    }
+
+    private Task task(UUID id, TaskStatus status, int processedRows) {
+        return Task.builder()
+            .id(id)
+            .uploadBatchId(uploadBatchId)
+            .taskStatus(status)
+            .rowCount(10)
+            .processedRows(processedRows)
+            .build();
+    }
+}
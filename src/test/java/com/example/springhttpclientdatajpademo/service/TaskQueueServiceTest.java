@@ -0,0 +1,123 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.WorkerProperties;
+import com.example.springhttpclientdatajpademo.entity.TaskOutboxEvent;
+import com.example.springhttpclientdatajpademo.repository.TaskOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TaskQueueServiceTest {
+
+    private static final Duration INTERVAL = Duration.ofSeconds(1);
+
+    @Mock
+    private TaskOutboxRepository outboxRepository;
+
+    private final UUID otherNode = UUID.randomUUID();
+    private final List<TaskOutboxEvent> committed = new ArrayList<>();
+    private WorkerProperties workerProperties;
+    private TaskQueueService taskQueueService;
+
+    @BeforeEach
+    void setUp() {
+        workerProperties = new WorkerProperties();
+        workerProperties.setOutboxPollInterval(INTERVAL);
+        taskQueueService = new TaskQueueService(outboxRepository, workerProperties);
+
+        // In-memory task_outbox table holding the rows committed so far
+        when(outboxRepository.findMaxId()).thenReturn(Mono.just(0L));
+        when(outboxRepository.findAfter(anyLong(), anyInt())).thenAnswer(invocation -> Flux.fromIterable(List.copyOf(committed))
+            .filter(event -> event.getId() > invocation.<Long>getArgument(0))
+            .take(invocation.<Integer>getArgument(1)));
+        when(outboxRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return Flux.fromIterable(List.copyOf(committed)).filter(event -> ids.contains(event.getId()));
+        });
+    }
+
+    @Test
+    void queuedTasks_PicksUpRowCommittedAfterHigherIds() {
+        // Given
+        UUID late = UUID.randomUUID();
+        UUID early = UUID.randomUUID();
+
+        // When & Then
+        StepVerifier.withVirtualTime(() -> taskQueueService.queuedTasks())
+            .then(() -> committed.add(event(2, early)))
+            .thenAwait(INTERVAL)
+            .expectNext(early)
+            // Id 1 was handed out first but its transaction commits only now
+            .then(() -> committed.add(event(1, late)))
+            .thenAwait(INTERVAL)
+            .expectNext(late)
+            .expectNoEvent(INTERVAL.multipliedBy(3))
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void queuedTasks_GivesUpOnGapAfterTimeout() {
+        // Given
+        workerProperties.setOutboxGapTimeout(Duration.ofSeconds(2));
+        UUID task = UUID.randomUUID();
+
+        // When & Then
+        StepVerifier.withVirtualTime(() -> taskQueueService.queuedTasks())
+            .then(() -> committed.add(event(3, task)))
+            .thenAwait(INTERVAL)
+            .expectNext(task)
+            // Ids 1 and 2 never commit (rolled back), they are looked for until the timeout passes
+            .thenAwait(Duration.ofSeconds(5))
+            .then(() -> committed.add(event(1, UUID.randomUUID())))
+            .expectNoEvent(INTERVAL.multipliedBy(2))
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void queuedTasks_DoesNotReadOutboxByDefault() {
+        // Given
+        TaskQueueService singleNode = new TaskQueueService(outboxRepository, new WorkerProperties());
+
+        // When & Then
+        StepVerifier.withVirtualTime(singleNode::queuedTasks)
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMinutes(1))
+            .thenCancel()
+            .verify();
+        verifyNoInteractions(outboxRepository);
+    }
+
+    private TaskOutboxEvent event(long id, UUID taskId) {
+        return TaskOutboxEvent.builder()
+            .id(id)
+            .taskId(taskId)
+            .eventType(TaskOutboxEvent.TASK_QUEUED)
+            .originNode(otherNode)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+}
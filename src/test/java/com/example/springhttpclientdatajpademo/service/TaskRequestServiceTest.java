@@ -50,12 +50,12 @@ class TaskRequestServiceTest {
 
         when(filePart.filename()).thenReturn("test.xlsx");
         when(jwtService.extractUserIdFromToken(authHeader)).thenReturn(userId);
-        when(taskService.createTasks(any(FilePart.class), eq(userId)))
+        when(taskService.createTasks(any(FilePart.class), eq(userId), any()))
             .thenReturn(Mono.just(expectedResponse));
 
         // When
         Mono<CreateTaskResponse> result = taskRequestService
-            .handleTaskCreationRequest(Mono.just(filePart), authHeader);
+            .handleTaskCreationRequest(Mono.just(filePart), null, authHeader);
 
         // Then
         StepVerifier.create(result)
@@ -74,7 +74,7 @@ class TaskRequestServiceTest {
 
         // When
         Mono<CreateTaskResponse> result = taskRequestService
-            .handleTaskCreationRequest(Mono.just(filePart), authHeader);
+            .handleTaskCreationRequest(Mono.just(filePart), null, authHeader);
 
         // Then
         StepVerifier.create(result)
@@ -95,7 +95,7 @@ class TaskRequestServiceTest {
 
         // When
         Mono<CreateTaskResponse> result = taskRequestService
-            .handleTaskCreationRequest(Mono.just(filePart), authHeader);
+            .handleTaskCreationRequest(Mono.just(filePart), null, authHeader);
 
         // Then
         StepVerifier.create(result)
@@ -115,7 +115,7 @@ class TaskRequestServiceTest {
 
         // When
         Mono<CreateTaskResponse> result = taskRequestService
-            .handleTaskCreationRequest(Mono.just(filePart), authHeader);
+            .handleTaskCreationRequest(Mono.just(filePart), null, authHeader);
 
         // Then
         StepVerifier.create(result)
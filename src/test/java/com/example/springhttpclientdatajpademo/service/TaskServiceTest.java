@@ -0,0 +1,492 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ExcelProperties;
+import com.example.springhttpclientdatajpademo.config.StorageProperties;
+import com.example.springhttpclientdatajpademo.dto.CreateTaskBatchResponse;
+import com.example.springhttpclientdatajpademo.dto.CreateTaskResponse;
+import com.example.springhttpclientdatajpademo.dto.ParsedExcelData;
+import com.example.springhttpclientdatajpademo.dto.RowValidationError;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.RowValidationMode;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.example.springhttpclientdatajpademo.exception.InvalidTaskStatusException;
+import com.example.springhttpclientdatajpademo.exception.RowValidationException;
+import com.example.springhttpclientdatajpademo.repository.ChatEvaluationInputRepository;
+import com.example.springhttpclientdatajpademo.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TaskServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ChatEvaluationInputRepository inputRepository;
+
+    @Mock
+    private ExcelParsingService excelParsingService;
+
+    @Mock
+    private R2dbcEntityTemplate entityTemplate;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Mock
+    private TaskQueueService taskQueueService;
+
+    @Mock
+    private DeletedTaskReclaimer deletedTaskReclaimer;
+
+    @Mock
+    private EvaluationStatsService evaluationStatsService;
+
+    @Mock
+    private TaskResultReader taskResultReader;
+
+    @Mock
+    private FilePart filePart;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TaskCancellationRegistry cancellationRegistry = new TaskCancellationRegistry();
+    private final TaskProgressService taskProgressService = new TaskProgressService();
+    private ExcelProperties excelProperties;
+    private TaskService taskService;
+
+    @BeforeEach
+    void setUp() {
+        excelProperties = new ExcelProperties();
+        taskService = new TaskService(taskRepository, inputRepository, excelParsingService,
+            entityTemplate, transactionalOperator, excelProperties, new InputStorageCodec(new StorageProperties()),
+            taskProgressService, taskQueueService, cancellationRegistry, deletedTaskReclaimer,
+            evaluationStatsService, taskResultReader);
+
+        when(filePart.filename()).thenReturn("test.xlsx");
+        when(excelParsingService.validateExcelFile(anyString(), any())).thenReturn(Mono.just(true));
+        when(entityTemplate.insert(any(Task.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(inputRepository.saveAll(anyFlux())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionalOperator.transactional(anyMono())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(taskQueueService.recordQueued(any(Task.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    }
+
+    @Test
+    void createTasks_RejectFileModeRollsBackSheetsPersistedBeforeInvalidRow() {
+        // Given
+        excelProperties.setRowValidationMode(RowValidationMode.REJECT_FILE);
+        when(excelParsingService.parseSheets(filePart)).thenReturn(Flux.just(validSheet("Valid"), invalidSheet()));
+
+        // When & Then
+        StepVerifier.create(taskService.createTasks(filePart, "user-1", null))
+            .expectErrorSatisfies(throwable -> {
+                assertThat(throwable).isInstanceOf(RowValidationException.class);
+                RowValidationException exception = (RowValidationException) throwable;
+                assertThat(exception.getRejectedRowCount()).isEqualTo(1);
+                assertThat(exception.getRowErrors()).extracting(RowValidationError::getRowNumber).containsExactly(2);
+            })
+            .verify();
+        // One transaction for the whole file, the error rolls the first sheet back
+        verify(transactionalOperator, times(1)).transactional(anyMono());
+        verify(entityTemplate, times(1)).insert(any(Task.class));
+        verify(taskQueueService, never()).publishQueued(any(Task.class));
+    }
+
+    @Test
+    void createTasks_RejectFileModeOnlyReportsSheetsAfterInvalidRow() {
+        // Given
+        excelProperties.setRowValidationMode(RowValidationMode.REJECT_FILE);
+        ParsedExcelData.SheetData second = invalidSheet();
+        when(excelParsingService.parseSheets(filePart))
+            .thenReturn(Flux.just(invalidSheet(), validSheet("Valid"), second));
+
+        // When & Then
+        StepVerifier.create(taskService.createTasks(filePart, "user-1", null))
+            .expectErrorSatisfies(throwable ->
+                assertThat(((RowValidationException) throwable).getRejectedRowCount()).isEqualTo(2))
+            .verify();
+        verify(entityTemplate, never()).insert(any(Task.class));
+    }
+
+    @Test
+    void createTasks_SkipsHeaderOnlySheets() {
+        // Given
+        ParsedExcelData.SheetData headerOnly = ParsedExcelData.SheetData.builder()
+            .sheetName("Empty")
+            .taskType(TaskType.CHAT_EVALUATION)
+            .rows(List.of())
+            .rowCount(0)
+            .rejectedRows(List.of())
+            .rejectedRowCount(0)
+            .build();
+        FilePart onlyHeaders = filePart("empty.xlsx", Flux.just(headerOnly));
+        when(excelParsingService.parseSheets(filePart)).thenReturn(Flux.just(headerOnly, validSheet("Valid")));
+
+        // When & Then
+        StepVerifier.create(taskService.createTasks(filePart, "user-1", null))
+            .assertNext(response -> assertThat(response.getTasks())
+                .extracting(CreateTaskResponse.TaskSummary::getSheetName).containsExactly("Valid"))
+            .verifyComplete();
+        StepVerifier.create(taskService.createTasks(onlyHeaders, "user-1", null))
+            .expectErrorMessage("No rows to evaluate in file: empty.xlsx")
+            .verify();
+        verify(entityTemplate, times(1)).insert(any(Task.class));
+    }
+
+    @Test
+    void createTasks_SkipInvalidRowsModePersistsValidRowsAndReportsRejects() {
+        // Given - the default mode
+        when(excelParsingService.parseSheets(filePart)).thenReturn(Flux.just(validSheet("Valid"), invalidSheet()));
+
+        // When & Then
+        StepVerifier.create(taskService.createTasks(filePart, "user-1", null))
+            .assertNext(response -> {
+                assertThat(response.getTotalTasks()).isEqualTo(2);
+                assertThat(response.getRejectedRowCount()).isEqualTo(1);
+                assertThat(response.getRejectedRows()).extracting(RowValidationError::getSheetName)
+                    .containsExactly("Mixed");
+            })
+            .verifyComplete();
+        verify(entityTemplate, times(2)).insert(any(Task.class));
+        verify(taskQueueService, times(2)).recordQueued(any(Task.class));
+        verify(taskQueueService, times(2)).publishQueued(any(Task.class));
+    }
+
+    @Test
+    void createTasks_WithdrawsPersistedSheetsWhenLaterSheetFails() {
+        // Given
+        when(excelParsingService.parseSheets(filePart)).thenReturn(Flux.concat(
+            Flux.just(validSheet("First")),
+            Flux.error(new IllegalArgumentException("Sheet 'Second' has more than 10 rows"))));
+        when(taskRepository.cancel(any(UUID.class), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+        when(taskRepository.markDeleted(any(UUID.class), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        // When & Then
+        StepVerifier.create(taskService.createTasks(filePart, "user-1", null))
+            .expectErrorMessage("Sheet 'Second' has more than 10 rows")
+            .verify();
+        ArgumentCaptor<Task> inserted = ArgumentCaptor.forClass(Task.class);
+        verify(entityTemplate).insert(inserted.capture());
+        UUID firstTaskId = inserted.getValue().getId();
+        verify(taskRepository).cancel(eq(firstTaskId), any(LocalDateTime.class));
+        verify(taskRepository).markDeleted(eq(firstTaskId), any(LocalDateTime.class));
+        verify(deletedTaskReclaimer).wakeUp();
+        assertThat(inserted.getValue().getTaskStatus()).isEqualTo(TaskStatus.CANCELLED);
+        assertThat(inserted.getValue().getDeletedAt()).isNotNull();
+    }
+
+    @Test
+    void createTasks_SkipsNonTaskSheets() {
+        // Given
+        ParsedExcelData.SheetData notes = ParsedExcelData.SheetData.builder()
+            .sheetName("Notes")
+            .rows(List.of())
+            .rowCount(0)
+            .rejectedRowCount(0)
+            .build();
+        when(excelParsingService.parseSheets(filePart)).thenReturn(Flux.just(notes, validSheet("Valid")));
+
+        // When & Then
+        StepVerifier.create(taskService.createTasks(filePart, "user-1", null))
+            .assertNext(response -> {
+                assertThat(response.getTotalTasks()).isEqualTo(1);
+                assertThat(response.getTasks().get(0).getSheetName()).isEqualTo("Valid");
+                assertThat(response.getRejectedRowCount()).isZero();
+                assertThat(response.getRejectedRows()).isNull();
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void createTaskBatch_FailedFilesDoNotAbortTheOthers() {
+        // Given
+        excelProperties.setRowValidationMode(RowValidationMode.REJECT_FILE);
+        FilePart first = filePart("first.xlsx", Flux.just(validSheet("First")));
+        FilePart rejected = filePart("rejected.xlsx", Flux.just(invalidSheet()));
+        FilePart notExcel = filePart("notes.txt", Flux.empty());
+        FilePart broken = filePart("broken.xlsx", Flux.error(new IllegalStateException("Corrupt workbook")));
+        FilePart last = filePart("last.xlsx", Flux.just(validSheet("Last")));
+        when(excelParsingService.validateExcelFile(eq("notes.txt"), any())).thenReturn(Mono.just(false));
+
+        // When & Then
+        StepVerifier.create(taskService.createTaskBatch(Flux.just(first, rejected, notExcel, broken, last), "user-1", null))
+            .assertNext(response -> {
+                assertThat(response.getTotalFiles()).isEqualTo(5);
+                assertThat(response.getFailedFiles()).isEqualTo(3);
+                assertThat(response.getTotalTasks()).isEqualTo(2);
+                assertThat(response.getFiles()).extracting(CreateTaskBatchResponse.FileResult::getFilename)
+                    .containsExactly("first.xlsx", "rejected.xlsx", "notes.txt", "broken.xlsx", "last.xlsx");
+                assertThat(response.getFiles()).extracting(CreateTaskBatchResponse.FileResult::getErrorCode)
+                    .containsExactly(null, "ROW_VALIDATION_FAILED", "INVALID_REQUEST", "INTERNAL_ERROR", null);
+                assertThat(response.getFiles().get(1).getRejectedRows()).extracting(RowValidationError::getRowNumber)
+                    .containsExactly(2);
+                assertThat(response.getFiles().get(4).getTasks()).extracting(CreateTaskResponse.TaskSummary::getSheetName)
+                    .containsExactly("Last");
+            })
+            .verifyComplete();
+        ArgumentCaptor<Task> inserted = ArgumentCaptor.forClass(Task.class);
+        verify(entityTemplate, times(2)).insert(inserted.capture());
+        assertThat(inserted.getAllValues()).extracting(Task::getUploadBatchId).doesNotContainNull().hasSize(2)
+            .containsOnly(inserted.getAllValues().get(0).getUploadBatchId());
+    }
+
+    @Test
+    void createTaskBatch_ProcessesFilesConcurrentlyUpToFileParallelism() {
+        // Given
+        excelProperties.setFileParallelism(2);
+        AtomicInteger parsing = new AtomicInteger();
+        AtomicInteger maxParsing = new AtomicInteger();
+        List<FilePart> files = IntStream.rangeClosed(1, 5)
+            .mapToObj(i -> filePart("file-" + i + ".xlsx", Flux.just(validSheet("Sheet" + i))
+                .delayElements(Duration.ofMillis(50))
+                .doOnSubscribe(subscription -> maxParsing.accumulateAndGet(parsing.incrementAndGet(), Math::max))
+                .doOnTerminate(parsing::decrementAndGet)))
+            .toList();
+
+        // When & Then
+        StepVerifier.create(taskService.createTaskBatch(Flux.fromIterable(files), "user-1", 3))
+            .assertNext(response -> {
+                assertThat(response.getFailedFiles()).isZero();
+                assertThat(response.getTotalTasks()).isEqualTo(5);
+            })
+            .verifyComplete();
+        assertThat(maxParsing.get()).isEqualTo(2);
+    }
+
+    @Test
+    void createTaskBatch_RejectsEmptyUpload() {
+        // When & Then
+        StepVerifier.create(taskService.createTaskBatch(Flux.empty(), "user-1", null))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+    }
+
+    @Test
+    void createTask_PersistsRowsInOneTransactionAndQueuesTask() {
+        // Given
+        Task task = task(TaskStatus.QUEUEING);
+        List<ChatEvaluationInput> inputs = IntStream.rangeClosed(1, 2)
+            .mapToObj(rowNumber -> ChatEvaluationInput.builder()
+                .taskId(task.getId())
+                .rowNumber(rowNumber)
+                .question("Question " + rowNumber + "?")
+                .goldenAnswer("")
+                .build())
+            .toList();
+        AtomicInteger savedRows = new AtomicInteger();
+        when(inputRepository.saveAll(anyFlux())).thenAnswer(invocation -> invocation.<Flux<ChatEvaluationInput>>getArgument(0)
+            .doOnNext(input -> savedRows.incrementAndGet()));
+
+        // When & Then
+        StepVerifier.create(taskService.createTask(task, inputs))
+            .expectNext(task)
+            .verifyComplete();
+        assertThat(savedRows).hasValue(2);
+        verify(transactionalOperator).transactional(anyMono());
+        verify(taskQueueService).recordQueued(task);
+        verify(taskQueueService).publishQueued(task);
+    }
+
+    @Test
+    void cancelTask_SignalsTaskRunningOnThisNode() {
+        // Given
+        Task task = task(TaskStatus.PROCESSING);
+        when(taskRepository.findById(task.getId())).thenReturn(Mono.just(task));
+        when(taskRepository.cancel(eq(task.getId()), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+        Mono<Boolean> cancellation = cancellationRegistry.register(task.getId());
+
+        // When & Then
+        StepVerifier.create(taskService.cancelTask(task.getId(), "user-1"))
+            .assertNext(cancelled -> {
+                assertThat(cancelled.getTaskStatus()).isEqualTo(TaskStatus.CANCELLED);
+                assertThat(cancelled.getCancelledAt()).isNotNull();
+            })
+            .verifyComplete();
+        StepVerifier.create(cancellation)
+            .expectNext(true)
+            .verifyComplete();
+    }
+
+    @Test
+    void cancelTask_RejectsFinishedTask() {
+        // Given
+        Task task = task(TaskStatus.COMPLETED);
+        when(taskRepository.findById(task.getId())).thenReturn(Mono.just(task));
+
+        // When & Then
+        StepVerifier.create(taskService.cancelTask(task.getId(), "user-1"))
+            .expectErrorSatisfies(error -> assertThat(error)
+                .isInstanceOf(InvalidTaskStatusException.class)
+                .hasMessage("Cannot cancel completed task"))
+            .verify();
+        verify(taskRepository, never()).cancel(any(UUID.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void cancelTask_RejectsTaskThatFinishedConcurrently() {
+        // Given
+        Task task = task(TaskStatus.PROCESSING);
+        when(taskRepository.findById(task.getId()))
+            .thenReturn(Mono.just(task))
+            .thenReturn(Mono.just(task(TaskStatus.COMPLETED)));
+        when(taskRepository.cancel(eq(task.getId()), any(LocalDateTime.class))).thenReturn(Mono.just(0));
+
+        // When & Then
+        StepVerifier.create(taskService.cancelTask(task.getId(), "user-1"))
+            .expectError(InvalidTaskStatusException.class)
+            .verify();
+    }
+
+    @Test
+    void deleteTask_MarksTaskDeletedAndWakesReclaimer() {
+        // Given
+        Task task = task(TaskStatus.COMPLETED);
+        when(taskRepository.findById(task.getId())).thenReturn(Mono.just(task));
+        when(taskRepository.markDeleted(eq(task.getId()), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        // When & Then
+        StepVerifier.create(taskService.deleteTask(task.getId(), "user-1"))
+            .verifyComplete();
+        verify(deletedTaskReclaimer).wakeUp();
+    }
+
+    @Test
+    void deleteTask_CompletesProgressStreamOfQueuedTask() {
+        // Given
+        Task task = task(TaskStatus.QUEUEING);
+        when(taskRepository.findById(task.getId())).thenReturn(Mono.just(task));
+        when(taskRepository.markDeleted(eq(task.getId()), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        // When & Then
+        StepVerifier.create(taskService.watchTask(task.getId(), "user-1"))
+            .assertNext(event -> assertThat(event.getStatus()).isEqualTo(TaskStatus.QUEUEING))
+            .then(() -> taskService.deleteTask(task.getId(), "user-1").block())
+            .assertNext(event -> assertThat(event.getStatus()).isEqualTo(TaskStatus.CANCELLED))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void deleteTask_RejectsProcessingTask() {
+        // Given
+        Task task = task(TaskStatus.PROCESSING);
+        when(taskRepository.findById(task.getId())).thenReturn(Mono.just(task));
+
+        // When & Then
+        StepVerifier.create(taskService.deleteTask(task.getId(), "user-1"))
+            .expectErrorSatisfies(error -> assertThat(error)
+                .isInstanceOf(InvalidTaskStatusException.class)
+                .hasMessage("Cannot delete task in processing status"))
+            .verify();
+        verify(taskRepository, never()).markDeleted(any(UUID.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void getTaskById_HidesDeletedTask() {
+        // Given
+        Task task = task(TaskStatus.COMPLETED);
+        task.setDeletedAt(LocalDateTime.now());
+        when(taskRepository.findById(task.getId())).thenReturn(Mono.just(task));
+
+        // When & Then
+        StepVerifier.create(taskService.getTaskById(task.getId(), "user-1"))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+    }
+
+    private Task task(TaskStatus status) {
+        return Task.builder()
+            .id(UUID.nameUUIDFromBytes("task".getBytes()))
+            .userId("user-1")
+            .taskStatus(status)
+            .rowCount(10)
+            .processedRows(3)
+            .build();
+    }
+
+    private FilePart filePart(String filename, Flux<ParsedExcelData.SheetData> sheets) {
+        FilePart part = mock(FilePart.class);
+        when(part.filename()).thenReturn(filename);
+        when(excelParsingService.parseSheets(part)).thenReturn(sheets);
+        return part;
+    }
+
+    private ParsedExcelData.SheetData validSheet(String name) {
+        return ParsedExcelData.SheetData.builder()
+            .sheetName(name)
+            .taskType(TaskType.CHAT_EVALUATION)
+            .rows(List.of(row(1)))
+            .rowCount(1)
+            .rejectedRows(List.of())
+            .rejectedRowCount(0)
+            .build();
+    }
+
+    private ParsedExcelData.SheetData invalidSheet() {
+        return ParsedExcelData.SheetData.builder()
+            .sheetName("Mixed")
+            .taskType(TaskType.CHAT_EVALUATION)
+            .rows(List.of(row(1)))
+            .rowCount(1)
+            .rejectedRows(List.of(RowValidationError.builder()
+                .sheetName("Mixed")
+                .rowNumber(2)
+                .errors(List.of("question is required"))
+                .build()))
+            .rejectedRowCount(1)
+            .build();
+    }
+
+    /**
+     * Typed matchers for the generic Publisher parameters, a raw any(Flux.class) is an unchecked conversion
+     */
+    private static <T> Flux<T> anyFlux() {
+        return any();
+    }
+
+    private static <T> Mono<T> anyMono() {
+        return any();
+    }
+
+    private ParsedExcelData.RowData row(int rowNumber) {
+        return ParsedExcelData.RowData.builder()
+            .rowNumber(rowNumber)
+            .question("Q")
+            .goldenAnswer("A")
+            .goldenCitations(objectMapper.createArrayNode().add("https://example.com"))
+            .build();
+    }
+}
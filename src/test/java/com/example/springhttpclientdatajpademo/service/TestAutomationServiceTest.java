@@ -0,0 +1,288 @@
+package com.example.springhttpclientdatajpademo.service;
+
+import com.example.springhttpclientdatajpademo.config.ChatApiProperties;
+import com.example.springhttpclientdatajpademo.config.StorageProperties;
+import com.example.springhttpclientdatajpademo.config.TestAutomationProperties;
+import com.example.springhttpclientdatajpademo.dto.TestRunRequest;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationInput;
+import com.example.springhttpclientdatajpademo.entity.ChatEvaluationOutput;
+import com.example.springhttpclientdatajpademo.entity.Task;
+import com.example.springhttpclientdatajpademo.enums.TaskStatus;
+import com.example.springhttpclientdatajpademo.enums.TaskType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a local stub of the chat platform that answers every chat call after a fixed latency
+ * Rows are evaluated the way the worker does, in row order with at most WORKER_CONCURRENCY at a time.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TestAutomationServiceTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(100);
+    private static final String BLOCKED_USER = "blocked-user";
+    private static final int WORKER_CONCURRENCY = 16;
+
+    @Mock
+    private TaskService taskService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InputStorageCodec inputStorageCodec = new InputStorageCodec(new StorageProperties());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Map<String, AtomicInteger> inFlightPerToken = new ConcurrentHashMap<>();
+    private final AtomicInteger maxInFlightPerToken = new AtomicInteger();
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    private DisposableServer chatServer;
+    private TestAutomationProperties properties;
+    private TestAutomationService service;
+    private List<ChatEvaluationInput> createdRows;
+
+    @BeforeEach
+    void setUp() {
+        chatServer = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                .post("/rest/api/v1/createauthtoken", (request, response) -> {
+                    tokenRequests.incrementAndGet();
+                    String testUser = request.requestHeaders().get("X-Scio-ActAs");
+                    if (BLOCKED_USER.equals(testUser)
+                            || !"Bearer service-token".equals(request.requestHeaders().get("Authorization"))) {
+                        return response.status(403).send();
+                    }
+                    return response.header("Content-Type", "application/json")
+                        .sendString(Mono.just("{\"token\":\"token-" + testUser + "\"}"));
+                })
+                .post("/chat", (request, response) -> {
+                    String token = request.requestHeaders().get("Authorization");
+                    AtomicInteger userInFlight = inFlightPerToken.computeIfAbsent(token, key -> new AtomicInteger());
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    maxInFlightPerToken.accumulateAndGet(userInFlight.incrementAndGet(), Math::max);
+                    return response.header("Content-Type", "application/json")
+                        .sendString(request.receive().aggregate().asString()
+                            .delayElement(LATENCY)
+                            // Counted out before the answer is sent, so the client cannot start its next call earlier
+                            .doOnNext(body -> {
+                                inFlight.decrementAndGet();
+                                userInFlight.decrementAndGet();
+                            })
+                            .map(body -> "{\"answer\":\"" + token + "\",\"citations\":[]}"));
+                }))
+            .bindNow();
+
+        ChatApiProperties chatApiProperties = new ChatApiProperties();
+        chatApiProperties.setBaseUrl("http://localhost:" + chatServer.port());
+        chatApiProperties.setApiToken("service-token");
+        chatApiProperties.setTimeout(Duration.ofSeconds(5));
+        chatApiProperties.setMaxRetries(0);
+
+        properties = new TestAutomationProperties();
+        properties.setPerUserConcurrency(2);
+        properties.setRequestUsers(List.of("admin"));
+        properties.setTestUsers(users(20));
+        properties.setQuestions(questions(30));
+        service = new TestAutomationService(
+            new TestAutomationClient(WebClient.builder(), chatApiProperties, properties), properties, taskService,
+            inputStorageCodec, objectMapper);
+
+        // Rows get the ids the database would assign
+        when(taskService.createTask(any(Task.class), anyList())).thenAnswer(invocation -> {
+            createdRows = invocation.getArgument(1);
+            createdRows.forEach(row -> row.setId((long) row.getRowNumber()));
+            return Mono.just(invocation.getArgument(0));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (createdRows != null) {
+            service.taskFinished(createdRows.get(0).getTaskId());
+        }
+        chatServer.disposeNow();
+    }
+
+    @Test
+    void createTestRun_QueuesOneRowPerTestUserAndQuestion() {
+        // When & Then
+        StepVerifier.create(service.createTestRun("admin", new TestRunRequest(users(3), questions(2))))
+            .assertNext(response -> {
+                assertThat(response.getTotalTasks()).isEqualTo(1);
+                assertThat(response.getTasks().get(0).getTaskType()).isEqualTo(TaskType.TEST_AUTOMATION);
+                assertThat(response.getTasks().get(0).getRowCount()).isEqualTo(6);
+            })
+            .verifyComplete();
+        verify(taskService).createTask(any(Task.class), anyList());
+
+        // Question by question, so consecutive rows belong to different test users
+        assertThat(createdRows).extracting(ChatEvaluationInput::getRowNumber).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(createdRows).extracting(this::testUser)
+            .containsExactly("user-1", "user-2", "user-3", "user-1", "user-2", "user-3");
+        assertThat(createdRows).extracting(ChatEvaluationInput::getQuestion)
+            .containsExactly("Question 1?", "Question 1?", "Question 1?", "Question 2?", "Question 2?", "Question 2?");
+        assertThat(tokenRequests.get()).isZero();
+    }
+
+    @Test
+    void createTestRun_RejectsUnapprovedRequests() {
+        // When & Then
+        StepVerifier.create(service.createTestRun("someone", new TestRunRequest(null, null)))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        StepVerifier.create(service.createTestRun("admin", new TestRunRequest(List.of("intruder"), null)))
+            .expectErrorMessage("Not approved test users: [intruder]")
+            .verify();
+        StepVerifier.create(service.createTestRun("admin", new TestRunRequest(null, List.of("Unlisted question?"))))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+        verify(taskService, never()).createTask(any(Task.class), anyList());
+    }
+
+    @Test
+    void ask_FansOutWithBoundedConcurrency() {
+        // Given
+        Task task = createTestRun(new TestRunRequest(null, null));
+        int calls = createdRows.size();
+
+        // When
+        long started = System.nanoTime();
+        List<ChatEvaluationOutput> results = process(task, createdRows);
+        Duration wallClock = Duration.ofNanos(System.nanoTime() - started);
+
+        // Then
+        assertThat(results).hasSize(calls).allMatch(result -> result.getErrorMessage() == null);
+        // 600 calls of 100ms take 60s one after another and about 4s at 16 in flight, leave room for slow machines
+        long sequentialMillis = calls * LATENCY.toMillis();
+        long idealMillis = sequentialMillis / WORKER_CONCURRENCY;
+        assertThat(wallClock.toMillis()).isGreaterThanOrEqualTo(idealMillis).isLessThan(sequentialMillis / 4);
+        double callsPerSecond = calls * 1000.0 / wallClock.toMillis();
+        double sequentialCallsPerSecond = 1000.0 / LATENCY.toMillis();
+        assertThat(callsPerSecond).isGreaterThan(4 * sequentialCallsPerSecond);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(WORKER_CONCURRENCY).isGreaterThan(1);
+        assertThat(maxInFlightPerToken.get()).isLessThanOrEqualTo(properties.getPerUserConcurrency());
+
+        // One token per test user, every call made with the token of the user it was made for
+        assertThat(tokenRequests.get()).isEqualTo(20);
+        Map<Long, ChatEvaluationInput> rows = createdRows.stream()
+            .collect(Collectors.toMap(ChatEvaluationInput::getId, Function.identity()));
+        assertThat(results).allSatisfy(result -> assertThat(result.getApiAnswer())
+            .isEqualTo("Bearer token-" + testUser(rows.get(result.getInputId()))));
+        assertThat(results).extracting(ChatEvaluationOutput::getInputId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void ask_CapsCallsPerTestUser() {
+        // Given
+        properties.setPerUserConcurrency(1);
+        Task task = createTestRun(new TestRunRequest(users(2), questions(10)));
+
+        // When
+        List<ChatEvaluationOutput> results = process(task, createdRows);
+
+        // Then
+        assertThat(results).hasSize(20).allMatch(result -> result.getErrorMessage() == null);
+        assertThat(maxInFlightPerToken.get()).isEqualTo(1);
+    }
+
+    @Test
+    void ask_RecordsFailingTestUserAsErrorResults() {
+        // Given
+        properties.setTestUsers(List.of("user-1", BLOCKED_USER, "user-2"));
+        Task task = createTestRun(new TestRunRequest(null, questions(3)));
+        Map<Long, String> testUsers = createdRows.stream()
+            .collect(Collectors.toMap(ChatEvaluationInput::getId, this::testUser));
+
+        // When
+        List<ChatEvaluationOutput> results = process(task, createdRows);
+
+        // Then
+        assertThat(results).hasSize(9);
+        assertThat(results).filteredOn(result -> testUsers.get(result.getInputId()).equals(BLOCKED_USER))
+            .hasSize(3)
+            .allSatisfy(result -> {
+                assertThat(result.getApiAnswer()).isEmpty();
+                assertThat(result.getErrorMessage()).startsWith("Authentication failed");
+            });
+        assertThat(results).filteredOn(result -> !testUsers.get(result.getInputId()).equals(BLOCKED_USER))
+            .hasSize(6)
+            .allMatch(result -> result.getErrorMessage() == null);
+        // The rejected user is asked for a token once, not once per question
+        assertThat(tokenRequests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void taskFinished_ClosesSessionsOfTheRun() {
+        // Given
+        Task task = createTestRun(new TestRunRequest(users(2), questions(2)));
+        process(task, createdRows);
+
+        // When
+        service.taskFinished(task.getId());
+        List<ChatEvaluationOutput> resumed = process(task, createdRows.subList(0, 1));
+
+        // Then
+        assertThat(resumed).allMatch(result -> result.getErrorMessage() == null);
+        assertThat(tokenRequests.get()).isEqualTo(3);
+    }
+
+    private Task createTestRun(TestRunRequest request) {
+        service.createTestRun("admin", request).block(Duration.ofSeconds(5));
+        return Task.builder()
+            .id(createdRows.get(0).getTaskId())
+            .userId("admin")
+            .taskType(TaskType.TEST_AUTOMATION)
+            .taskStatus(TaskStatus.PROCESSING)
+            .rowCount(createdRows.size())
+            .processedRows(0)
+            .build();
+    }
+
+    private List<ChatEvaluationOutput> process(Task task, List<ChatEvaluationInput> rows) {
+        return Flux.fromIterable(rows)
+            .flatMap(row -> service.ask(task, row), WORKER_CONCURRENCY)
+            .collectList()
+            .block(Duration.ofSeconds(30));
+    }
+
+    private String testUser(ChatEvaluationInput row) {
+        return inputStorageCodec.metadata(row).get(TestAutomationService.TEST_USER_KEY);
+    }
+
+    private static List<String> users(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(i -> "user-" + i).toList();
+    }
+
+    private static List<String> questions(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(i -> "Question " + i + "?").toList();
+    }
+}